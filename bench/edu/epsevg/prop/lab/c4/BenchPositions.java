@@ -0,0 +1,96 @@
+package edu.epsevg.prop.lab.c4;
+
+/**
+ * Clase BenchPositions con el corpus fijo de posiciones de los benchmarks.
+ *
+ * Cada posición es la secuencia de columnas jugadas desde el tablero vacío de 8x8, empezando
+ * el color 1. Ninguna está terminada y en todas mueve el color 1, así que los resultados
+ * se pueden comparar entre versiones del código.
+ */
+final class BenchPositions {
+
+    static final int SIZE = 8; // Tamaño del tablero del corpus
+
+    private static final String[] OPENING = { // 6 fichas
+        "417333", "166530", "613036", "754263"
+    };
+    private static final String[] MIDGAME = { // 22 fichas
+        "2442342611544417213156", "5332774216444114636104",
+        "2761604044630571054726", "3201742332145731433563"
+    };
+    private static final String[] ENDGAME = { // 48 fichas
+        "447567042334337357446135535635477266475215210027",
+        "166411347375536034403603617322260523610520556515",
+        "534572333304062721240054356746563006403577045245",
+        "072266006440543574245205234406373163467531111131"
+    };
+
+    private BenchPositions() {
+    }
+
+    /**
+     * @param phase "opening", "midgame" o "endgame".
+     * @return Secuencias de jugadas de la fase.
+     */
+    static String[] sequences(String phase) {
+        switch (phase) {
+            case "opening": return OPENING;
+            case "midgame": return MIDGAME;
+            case "endgame": return ENDGAME;
+            default: throw new IllegalArgumentException("Fase desconocida: " + phase);
+        }
+    }
+
+    /**
+     * @param phase Fase del corpus.
+     * @return Posiciones de la fase como bitboards.
+     */
+    static Bitboard[] bitboards(String phase) {
+        String[] moves = sequences(phase);
+        Bitboard[] boards = new Bitboard[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            boards[i] = new Bitboard(SIZE);
+            int color = 1;
+            for (char c : moves[i].toCharArray()) {
+                boards[i].play(c - '0', color);
+                color = -color;
+            }
+        }
+        return boards;
+    }
+
+    /**
+     * @param phase Fase del corpus.
+     * @return Posiciones de la fase como tableros de la librería.
+     */
+    static Tauler[] taulers(String phase) {
+        String[] moves = sequences(phase);
+        Tauler[] taulers = new Tauler[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            taulers[i] = new Tauler(SIZE);
+            int color = 1;
+            for (char c : moves[i].toCharArray()) {
+                taulers[i].afegeix(c - '0', color);
+                color = -color;
+            }
+        }
+        return taulers;
+    }
+
+    /**
+     * @param phase Fase del corpus.
+     * @return Posiciones de la fase como matrices {@code board[fila][columna]}.
+     */
+    static int[][][] arrays(String phase) {
+        Bitboard[] boards = bitboards(phase);
+        int[][][] arrays = new int[boards.length][SIZE][SIZE];
+        for (int i = 0; i < boards.length; i++) {
+            for (int r = 0; r < SIZE; r++) {
+                for (int c = 0; c < SIZE; c++) {
+                    arrays[i][r][c] = boards[i].get(r, c);
+                }
+            }
+        }
+        return arrays;
+    }
+}
@@ -0,0 +1,82 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks de la evaluación: puntuación, detección de victoria y fin de partida, tanto
+ * sobre matrices como sobre bitboards, y la conversión de {@link Tauler} a matriz. Cada
+ * operación recorre todas las posiciones de la fase.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+
+    @Param({"opening", "midgame", "endgame"})
+    public String phase; // Fase del corpus
+
+    private Heuristica heuristica; // Heurística del tablero de 8x8
+    private int[][][] arrays; // Posiciones como matrices
+    private Bitboard[] bitboards; // Posiciones como bitboards
+    private Tauler[] taulers; // Posiciones como tableros de la librería
+    private MinMaxBot bot; // Bot que convierte los tableros
+
+    @Setup
+    public void setup() {
+        heuristica = new Heuristica(BenchPositions.SIZE);
+        arrays = BenchPositions.arrays(phase);
+        bitboards = BenchPositions.bitboards(phase);
+        taulers = BenchPositions.taulers(phase);
+        bot = new MinMaxBot(BenchPositions.SIZE, 1, null);
+    }
+
+    @Benchmark
+    public void scorePosition(Blackhole bh) {
+        for (int[][] board : arrays) bh.consume(heuristica.scorePosition(board, 1));
+    }
+
+    @Benchmark
+    public void scorePositionBitboard(Blackhole bh) {
+        for (Bitboard board : bitboards) bh.consume(heuristica.scorePosition(board, 1));
+    }
+
+    @Benchmark
+    public void winningMove(Blackhole bh) {
+        for (int[][] board : arrays) bh.consume(heuristica.winningMove(board, 1));
+    }
+
+    @Benchmark
+    public void winningMoveBitboard(Blackhole bh) {
+        for (Bitboard board : bitboards) bh.consume(heuristica.winningMove(board, 1));
+    }
+
+    @Benchmark
+    public void finished(Blackhole bh) {
+        for (int[][] board : arrays) bh.consume(heuristica.finished(board));
+    }
+
+    @Benchmark
+    public void finishedBitboard(Blackhole bh) {
+        for (Bitboard board : bitboards) bh.consume(heuristica.finished(board));
+    }
+
+    @Benchmark
+    public void convertToBoardArray(Blackhole bh) {
+        for (Tauler t : taulers) bh.consume(bot.convertToBoardArray(t));
+    }
+}
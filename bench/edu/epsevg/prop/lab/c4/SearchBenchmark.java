@@ -0,0 +1,62 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks de la búsqueda: el Minimax original sobre matrices y {@link Search} sobre
+ * bitboards a profundidades fijas.
+ *
+ * La búsqueda con bitboards se mide sin tabla de transposiciones para que cada operación
+ * explore el mismo árbol y el resultado no dependa de las anteriores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({"opening", "midgame", "endgame"})
+    public String phase; // Fase del corpus
+
+    @Param({"2", "4", "6"})
+    public int depth; // Profundidad de la búsqueda
+
+    private MinMaxBot bot; // Bot con el Minimax original
+    private Search search; // Búsqueda sobre bitboards
+    private int[][][] arrays; // Posiciones como matrices
+    private Bitboard[] bitboards; // Posiciones como bitboards
+
+    @Setup
+    public void setup() {
+        bot = new MinMaxBot(BenchPositions.SIZE, depth, null);
+        search = new Search(new Heuristica(BenchPositions.SIZE), BenchPositions.SIZE);
+        arrays = BenchPositions.arrays(phase);
+        bitboards = BenchPositions.bitboards(phase);
+    }
+
+    @Benchmark
+    public void minimax(Blackhole bh) {
+        for (int[][] board : arrays) {
+            bh.consume(bot.minimax(board, depth, Integer.MIN_VALUE, Integer.MAX_VALUE, true, 1));
+        }
+    }
+
+    @Benchmark
+    public void search(Blackhole bh) {
+        for (Bitboard board : bitboards) bh.consume(search.search(board, 1, depth));
+    }
+}
@@ -0,0 +1,102 @@
+package edu.epsevg.prop.lab.c4;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Clase JfrSearchListener que publica las métricas de cada búsqueda como eventos de
+ * Java Flight Recorder: un evento {@code edu.epsevg.prop.lab.c4.Search} por movimiento y un
+ * {@code edu.epsevg.prop.lab.c4.SearchIteration} por cada profundidad completada.
+ *
+ * Los eventos solo se crean si la grabación los tiene activados, así que registrar este
+ * listener no cuesta nada fuera de una grabación. Como {@code jdk.jfr} no forma parte de
+ * Java 8, esta clase no está en {@code src}: se compila aparte con {@code ant jfr-compile}
+ * (Java 11 o posterior) y se añade al classpath cuando se quiere grabar.
+ */
+public class JfrSearchListener implements SearchListener {
+
+    @Override
+    public void searchFinished(SearchStats stats) {
+        SearchEvent event = new SearchEvent();
+        if (event.isEnabled()) {
+            event.nodes = stats.getNodes();
+            event.leafEvaluations = stats.getLeafEvaluations();
+            event.betaCutoffs = stats.getBetaCutoffs();
+            event.firstMoveCutoffRate = stats.getFirstMoveCutoffRate();
+            event.ttHitRate = stats.getTtHitRate();
+            event.depth = stats.getDepth();
+            event.column = stats.getColumn();
+            event.score = stats.getScore();
+            event.effectiveBranchingFactor = stats.getEffectiveBranchingFactor();
+            event.nodesPerSecond = stats.getNodesPerSecond();
+            event.searchTime = stats.getElapsedNanos();
+            event.commit();
+        }
+
+        for (int depth = 1; depth <= stats.getDepth(); depth++) {
+            IterationEvent iteration = new IterationEvent();
+            if (!iteration.isEnabled()) break;
+            if (stats.getDepthNodes(depth) == 0) continue;
+            iteration.depth = depth;
+            iteration.nodes = stats.getDepthNodes(depth);
+            iteration.iterationTime = stats.getDepthNanos(depth);
+            iteration.commit();
+        }
+    }
+
+    /**
+     * Evento con las métricas de una búsqueda completa.
+     */
+    @Name("edu.epsevg.prop.lab.c4.Search")
+    @Label("Búsqueda")
+    @Category({"4EnRaya", "Búsqueda"})
+    @Description("Métricas de una llamada a MinMaxBot.moviment")
+    @StackTrace(false)
+    static class SearchEvent extends Event {
+        @Label("Nodos")
+        long nodes;
+        @Label("Hojas evaluadas")
+        long leafEvaluations;
+        @Label("Podas beta")
+        long betaCutoffs;
+        @Label("Podas de la primera jugada")
+        double firstMoveCutoffRate;
+        @Label("Aciertos en la tabla")
+        double ttHitRate;
+        @Label("Profundidad")
+        int depth;
+        @Label("Columna")
+        int column;
+        @Label("Puntuación")
+        int score;
+        @Label("Factor de ramificación efectivo")
+        double effectiveBranchingFactor;
+        @Label("Nodos por segundo")
+        double nodesPerSecond;
+        @Label("Duración de la búsqueda")
+        @Timespan(Timespan.NANOSECONDS)
+        long searchTime;
+    }
+
+    /**
+     * Evento con los nodos y el tiempo de una iteración de la profundización.
+     */
+    @Name("edu.epsevg.prop.lab.c4.SearchIteration")
+    @Label("Iteración de búsqueda")
+    @Category({"4EnRaya", "Búsqueda"})
+    @StackTrace(false)
+    static class IterationEvent extends Event {
+        @Label("Profundidad")
+        int depth;
+        @Label("Nodos")
+        long nodes;
+        @Label("Duración de la iteración")
+        @Timespan(Timespan.NANOSECONDS)
+        long iterationTime;
+    }
+}
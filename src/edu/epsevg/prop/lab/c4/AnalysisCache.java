@@ -0,0 +1,236 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Clase AnalysisCache con los resultados de búsquedas profundas guardados en disco, para
+ * aprovecharlos entre ejecuciones y entre procesos.
+ *
+ * Es una tabla hash de tamaño fijo en un fichero que se proyecta en memoria. Cada entrada
+ * guarda la clave de {@link Search} y una entrada empaquetada igual que las de
+ * {@link TranspositionTable} (puntuación, profundidad, tipo de cota y mejor columna), así
+ * que la búsqueda la usa igual que la tabla de transposiciones. Cada clave tiene un cubo de
+ * {@value #BUCKET} casillas consecutivas; al llenarse se reemplaza la entrada menos profunda.
+ *
+ * Formato (big endian):
+ * <pre>
+ *   cabecera (64 bytes): magic, versión, lado, fichas en línea, log2 de casillas (int),
+ *                        reservado (int), comprobación de las claves Zobrist, hash de los
+ *                        pesos de la heurística, entradas ocupadas (long), relleno
+ *   casilla (16 bytes):  clave ^ entrada (long), entrada (long)
+ * </pre>
+ *
+ * Cualquier número de procesos puede leer el fichero a la vez con {@link #open}. Solo se
+ * escribe con {@link #merge}, que toma un {@link FileLock} exclusivo, así que varias fusiones
+ * se hacen de una en una. Como en la tabla de transposiciones, en lugar de la clave se
+ * guarda {@code clave ^ entrada}: un lector que ve una casilla a medio escribir la trata
+ * como un fallo. El tamaño del fichero no cambia tras crearlo, por lo que las proyecciones
+ * de los lectores siguen siendo válidas y ven las fusiones posteriores.
+ */
+public final class AnalysisCache {
+
+    public static final int MIN_DEPTH = 6; // Profundidad mínima de las entradas que se guardan y consultan
+    public static final int DEFAULT_LOG2_SLOTS = 22; // 2^22 casillas (64 MB) en un fichero nuevo
+    private static final int MAX_LOG2_SLOTS = 26; // 1 GB, el máximo que se proyecta con un solo buffer
+    private static final int MAGIC = 0x43344143; // "C4AC"
+    private static final int VERSION = 1; // Versión del formato
+    private static final int HEADER_BYTES = 64; // Tamaño de la cabecera
+    private static final int ENTRY_BYTES = 16; // Tamaño de cada casilla
+    private static final int BUCKET = 4; // Casillas consecutivas por clave
+    private static final int COUNT_OFFSET = 40; // Posición del número de entradas en la cabecera
+
+    private final ByteBuffer buffer; // Fichero proyectado en memoria
+    private final int mask; // Máscara del primer índice del cubo de una clave
+
+    /**
+     * Constructor de AnalysisCache a partir del contenido del fichero.
+     *
+     * @param buffer Contenido del fichero.
+     * @param heuristica Heurística con la que se va a consultar.
+     * @throws IOException Si el fichero no es una caché válida para esta heurística.
+     */
+    private AnalysisCache(ByteBuffer buffer, Heuristica heuristica) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("No es una caché de análisis");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Versión de caché no soportada: " + buffer.getInt(4));
+        }
+        if (buffer.getLong(24) != zobristCheck()) {
+            throw new IOException("La caché se generó con otras claves Zobrist");
+        }
+        int size = buffer.getInt(8);
+        int connect = buffer.getInt(12);
+        int log2Slots = buffer.getInt(16);
+        if (size != heuristica.getCOLUMN_COUNT() || connect != heuristica.WINDOW_LENGTH) {
+            throw new IOException("La caché es para un tablero de " + size + " con " + connect + " en línea");
+        }
+        if (buffer.getLong(32) != heuristica.weightsHash()) {
+            throw new IOException("La caché se generó con otros pesos de la heurística");
+        }
+        if (log2Slots < 2 || log2Slots > MAX_LOG2_SLOTS || buffer.capacity() < HEADER_BYTES + ((long) ENTRY_BYTES << log2Slots)) {
+            throw new IOException("Caché truncada");
+        }
+        this.mask = ((1 << log2Slots) - 1) & ~(BUCKET - 1);
+    }
+
+    /**
+     * Abre una caché para consultarla, proyectándola en memoria en modo de solo lectura.
+     *
+     * @param file Fichero de la caché.
+     * @param heuristica Heurística de las búsquedas que la van a consultar.
+     * @return Caché lista para consultar.
+     * @throws IOException Si no se puede leer o no corresponde a la heurística.
+     */
+    public static AnalysisCache open(Path file, Heuristica heuristica) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new AnalysisCache(buffer, heuristica);
+        }
+    }
+
+    /**
+     * Valor que depende de las claves Zobrist, para detectar cachés generadas con otras.
+     *
+     * @return Valor de comprobación.
+     */
+    private static long zobristCheck() {
+        return Zobrist.piece(0, 0) ^ Zobrist.piece(1, Bitboard.MAX_CELLS - 1) ^ Zobrist.perspective(1);
+    }
+
+    /**
+     * Busca una posición. Se puede llamar desde varios hilos a la vez.
+     *
+     * @param key Clave de la posición en la búsqueda.
+     * @return Entrada empaquetada (véase {@link TranspositionTable#probe(long)}), o 0 si no está.
+     */
+    public long probe(long key) {
+        int offset = HEADER_BYTES + ((int) key & mask) * ENTRY_BYTES;
+        for (int i = 0; i < BUCKET; i++, offset += ENTRY_BYTES) {
+            long entry = buffer.getLong(offset + 8);
+            if (entry != 0L && (buffer.getLong(offset) ^ entry) == key) return entry;
+        }
+        return 0L;
+    }
+
+    /**
+     * @return Número de entradas ocupadas según la última fusión.
+     */
+    public long entries() {
+        return buffer.getLong(COUNT_OFFSET);
+    }
+
+    /**
+     * Añade a la caché las entradas de una tabla de transposiciones con profundidad al menos
+     * {@link #MIN_DEPTH}, salvo las del {@link EndgameSolver}; si el fichero no existe, lo
+     * crea. Una entrada reemplaza a la de la misma posición si es al menos igual de profunda.
+     * Espera a que terminen las fusiones de otros procesos y, dentro de un mismo proceso, se
+     * hace una fusión cada vez.
+     *
+     * @param file Fichero de la caché.
+     * @param heuristica Heurística con la que se buscaron las entradas.
+     * @param log2Slots Logaritmo en base 2 del número de casillas si se crea el fichero.
+     * @param tt Tabla cuyas entradas se añaden.
+     * @return Número de entradas escritas.
+     * @throws IOException Si no se puede escribir o el fichero corresponde a otra heurística.
+     */
+    public static synchronized int merge(Path file, Heuristica heuristica, int log2Slots, TranspositionTable tt)
+            throws IOException {
+        if (log2Slots < 2 || log2Slots > MAX_LOG2_SLOTS) {
+            throw new IllegalArgumentException("Tamaño de caché no soportado: 2^" + log2Slots);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock(); // Bloquea hasta que termine la fusión de otro proceso
+            try {
+                if (channel.size() == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(heuristica.getCOLUMN_COUNT())
+                          .putInt(heuristica.WINDOW_LENGTH).putInt(log2Slots).putInt(0)
+                          .putLong(zobristCheck()).putLong(heuristica.weightsHash()).putLong(0L);
+                    header.rewind();
+                    while (header.hasRemaining()) channel.write(header, header.position());
+                    // Extiende el fichero hasta su tamaño definitivo; las casillas quedan a 0
+                    channel.write(ByteBuffer.allocate(1), HEADER_BYTES + ((long) ENTRY_BYTES << log2Slots) - 1);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                AnalysisCache cache = new AnalysisCache(buffer, heuristica);
+
+                int written = 0;
+                long count = cache.entries();
+                for (int i = 0; i < tt.capacity(); i++) {
+                    long entry = tt.entryAt(i);
+                    if (entry == 0L || TranspositionTable.depth(entry) < MIN_DEPTH
+                            || TranspositionTable.isSolved(entry)) continue; // Search no consulta las claves del resolvedor
+                    int result = cache.insert(tt.keyAt(i, entry), TranspositionTable.pack(
+                            TranspositionTable.depth(entry), TranspositionTable.bound(entry),
+                            TranspositionTable.score(entry), TranspositionTable.move(entry), 0));
+                    if (result != 0) ++written;
+                    if (result > 0) ++count;
+                }
+                buffer.putLong(COUNT_OFFSET, count);
+                buffer.force();
+                return written;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Escribe una entrada en su cubo: en la casilla de la misma posición si no es más
+     * profunda que la nueva, o si no en una libre, o si no en la menos profunda si lo es menos.
+     *
+     * @param key Clave de la posición.
+     * @param entry Entrada empaquetada.
+     * @return 1 si ocupa una casilla libre, -1 si reemplaza otra entrada, 0 si no se escribe.
+     */
+    private int insert(long key, long entry) {
+        int base = HEADER_BYTES + ((int) key & mask) * ENTRY_BYTES;
+        int depth = TranspositionTable.depth(entry);
+        int free = -1, shallow = -1, shallowDepth = Integer.MAX_VALUE;
+        for (int i = 0, offset = base; i < BUCKET; i++, offset += ENTRY_BYTES) {
+            long old = buffer.getLong(offset + 8);
+            if (old == 0L) {
+                if (free < 0) free = offset;
+            } else if ((buffer.getLong(offset) ^ old) == key) {
+                if (TranspositionTable.depth(old) > depth) return 0;
+                write(offset, key, entry);
+                return -1;
+            } else if (TranspositionTable.depth(old) < shallowDepth) {
+                shallowDepth = TranspositionTable.depth(old);
+                shallow = offset;
+            }
+        }
+        if (free >= 0) {
+            write(free, key, entry);
+            return 1;
+        }
+        if (shallowDepth < depth) {
+            write(shallow, key, entry);
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * Escribe una casilla. La entrada va primero, así que hasta que se escribe la clave un
+     * lector concurrente ve una casilla inconsistente y la ignora.
+     *
+     * @param offset Posición de la casilla en el fichero.
+     * @param key Clave de la posición.
+     * @param entry Entrada empaquetada.
+     */
+    private void write(int offset, long key, long entry) {
+        buffer.putLong(offset + 8, entry);
+        buffer.putLong(offset, key ^ entry);
+    }
+}
@@ -0,0 +1,250 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clase BatchAnalyzer que analiza con {@link MinMaxBot} todas las posiciones de un fichero y
+ * escribe, para cada una, la mejor columna, su puntuación, la profundidad alcanzada y las
+ * jugadas exploradas.
+ *
+ * Una posición son las columnas jugadas desde el tablero vacío, empezando el color 1, en
+ * base 36. Las posiciones se leen una a una y se analizan en un ejecutor con un número fijo de
+ * hilos; un {@link Semaphore} limita las posiciones pendientes, así que la lectura se detiene
+ * cuando los hilos no dan abasto y la memoria no depende del tamaño de la entrada. Cada
+ * resultado se escribe al terminar su búsqueda, por lo que las líneas de salida no siguen el
+ * orden de la entrada y llevan el identificador de la posición.
+ */
+public class BatchAnalyzer {
+
+    private final MinMaxBot bot; // Jugador que analiza; se comparte entre los hilos
+    private final int size; // Tamaño del lado del tablero
+    private final ExecutorService executor; // Hilos de análisis
+    private final Semaphore pending; // Posiciones leídas que aún no se han analizado
+    private final PrintWriter out; // Salida de los resultados
+    private final ThreadLocal<SearchStats> lastStats = new ThreadLocal<>(); // Métricas de la última búsqueda de cada hilo
+    private final AtomicLong analysed = new AtomicLong(); // Posiciones analizadas
+    private final AtomicLong errors = new AtomicLong(); // Posiciones no válidas o con error
+
+    /**
+     * Constructor de BatchAnalyzer.
+     *
+     * @param bot Jugador con el que se analizan las posiciones; debe poder usarse desde varios hilos.
+     * @param size Tamaño del tablero.
+     * @param threads Número de hilos de análisis.
+     * @param capacity Máximo de posiciones leídas pendientes de analizar.
+     * @param out Salida de los resultados.
+     */
+    public BatchAnalyzer(MinMaxBot bot, int size, int threads, int capacity, PrintWriter out) {
+        this.bot = bot;
+        this.size = size;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        this.pending = new Semaphore(Math.max(1, capacity));
+        this.out = out;
+        bot.addSearchListener(stats -> lastStats.set(stats));
+    }
+
+    /**
+     * Encola una posición para analizarla. Si ya hay demasiadas pendientes, espera a que se
+     * libere un hueco.
+     *
+     * @param id Identificador de la posición en la salida.
+     * @param moves Columnas jugadas, en base 36.
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    public void submit(final String id, final String moves) throws InterruptedException {
+        pending.acquire();
+        try {
+            executor.execute(() -> {
+                try {
+                    analyse(id, moves);
+                } finally {
+                    pending.release();
+                }
+            });
+        } catch (RuntimeException ex) {
+            pending.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Analiza una posición y escribe el resultado: identificador, columna, puntuación,
+     * profundidad y nodos. Una posición terminada se escribe con columna -1.
+     *
+     * @param id Identificador de la posición.
+     * @param moves Columnas jugadas, en base 36.
+     */
+    private void analyse(String id, String moves) {
+        // Se reproduce sobre un Tauler, que admite cualquier tamaño de tablero
+        Tauler t = new Tauler(size);
+        int color = 1;
+        boolean finished = false;
+        for (int i = 0; i < moves.length(); i++) {
+            int col = Character.digit(moves.charAt(i), 36);
+            if (finished || col < 0 || col >= size || !t.movpossible(col)) {
+                errors.incrementAndGet();
+                System.err.println(id + ": jugada no válida en la posición " + (i + 1));
+                return;
+            }
+            t.afegeix(col, color);
+            finished = t.solucio(col, color);
+            color = -color;
+        }
+        if (finished || !t.espotmoure()) {
+            analysed.incrementAndGet();
+            out.println(id + " -1 0 0 0");
+            return;
+        }
+
+        try {
+            lastStats.remove();
+            int best = bot.moviment(t, color);
+            SearchStats stats = lastStats.get();
+            analysed.incrementAndGet();
+            out.println(id + " " + best + " " + (stats != null ? stats.getScore() : 0)
+                    + " " + (stats != null ? stats.getDepth() : 0) + " " + (stats != null ? stats.getNodes() : 0));
+        } catch (RuntimeException ex) {
+            errors.incrementAndGet();
+            System.err.println(id + ": " + ex);
+        }
+    }
+
+    /**
+     * Analiza una posición por línea; el identificador es el número de línea. Se ignoran las
+     * líneas vacías y las que empiezan por {@code #}, y de cada línea solo se usa la primera
+     * palabra; el resto se puede usar como comentario.
+     *
+     * @param in Entrada de texto.
+     * @throws IOException Si no se puede leer.
+     * @throws InterruptedException Si se interrumpe la espera de un hueco.
+     */
+    public void submitLines(BufferedReader in) throws IOException, InterruptedException {
+        String line;
+        for (long number = 1; (line = in.readLine()) != null; number++) {
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') continue;
+            int space = line.indexOf(' ');
+            submit(Long.toString(number), space >= 0 ? line.substring(0, space) : line);
+        }
+    }
+
+    /**
+     * Analiza las posiciones anteriores a cada jugada de cada partida de un registro; el
+     * identificador es {@code partida:jugada}.
+     *
+     * @param reader Registro de partidas.
+     * @throws InterruptedException Si se interrumpe la espera de un hueco.
+     */
+    public void submitRecords(GameRecordReader reader) throws InterruptedException {
+        char[] moves = new char[reader.size() * reader.size()];
+        while (reader.next()) {
+            int count = reader.moveCount();
+            for (int i = 0; i < count; i++) {
+                submit(reader.game() + ":" + i, new String(moves, 0, i));
+                moves[i] = Character.forDigit(reader.column(i), 36);
+            }
+        }
+    }
+
+    /**
+     * Espera a que terminen todos los análisis y cierra los hilos.
+     *
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    public void finish() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        out.flush();
+    }
+
+    /**
+     * @return Posiciones analizadas.
+     */
+    public long getAnalysed() {
+        return analysed.get();
+    }
+
+    /**
+     * @return Posiciones no válidas o cuyo análisis falló.
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * @param file Fichero de entrada.
+     * @return true si es un registro de partidas de {@link GameRecordWriter}.
+     * @throws IOException Si no se puede leer.
+     */
+    private static boolean isRecordFile(Path file) throws IOException {
+        if (Files.size(file) < GameRecordWriter.HEADER_BYTES) return false;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == GameRecordWriter.MAGIC;
+        }
+    }
+
+    /**
+     * Analiza un fichero de posiciones (una por línea) o un registro de partidas, según su
+     * contenido, y escribe una línea {@code id columna puntuación profundidad nodos} por
+     * posición.
+     *
+     * Uso: {@code BatchAnalyzer entrada [salida|-] [profundidad] [hilos] [milisegundos]}.
+     *
+     * @param args Argumentos de la línea de comandos.
+     * @throws IOException Si no se puede leer la entrada o escribir la salida.
+     * @throws InterruptedException Si se interrumpe la ejecución.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Uso: BatchAnalyzer entrada [salida|-] [profundidad] [hilos] [milisegundos]");
+            return;
+        }
+        Path input = Paths.get(args[0]);
+        String output = args.length > 1 ? args[1] : "-";
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        boolean records = isRecordFile(input);
+        GameRecordReader reader = records ? GameRecordReader.open(input) : null;
+        int size = records ? reader.size() : MatchRunner.DEFAULT_SIZE;
+
+        MinMaxBot bot = new MinMaxBot(size, depth);
+        bot.setTimeLimit(millis);
+        PrintWriter out = new PrintWriter(new BufferedWriter("-".equals(output)
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)));
+        BatchAnalyzer analyzer = new BatchAnalyzer(bot, size, threads, 4 * threads, out);
+
+        long start = System.nanoTime();
+        try {
+            if (records) {
+                analyzer.submitRecords(reader);
+            } else {
+                try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                    analyzer.submitLines(in);
+                }
+            }
+        } finally {
+            analyzer.finish();
+            if (!"-".equals(output)) out.close();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.err.printf("%d posiciones analizadas, %d errores, en %.1f s%n",
+                analyzer.getAnalysed(), analyzer.getErrors(), elapsed / 1e9);
+    }
+}
@@ -0,0 +1,281 @@
+package edu.epsevg.prop.lab.c4;
+
+/**
+ * Clase Bitboard que representa una posición del tablero de forma compacta.
+ *
+ * Cada color ocupa dos {@code long} (128 bits). La casilla (fila, columna) corresponde
+ * al bit {@code columna * lado + fila}, de modo que las fichas de una misma columna son
+ * bits consecutivos. Junto con la altura de cada columna, realizar una jugada consiste
+ * en activar un único bit, en lugar de copiar una matriz completa.
+ *
+ * Además del hash Zobrist de la posición se mantiene el de su reflejo horizontal (la
+ * columna c pasa a ser lado - 1 - c), de modo que una posición y su simétrica se pueden
+ * identificar con un único hash canónico.
+ */
+public class Bitboard {
+
+    public static final int MAX_CELLS = 128; // Número máximo de casillas representables
+
+    private final int size; // Tamaño del lado del tablero (tablero cuadrado)
+    private final long[] low = new long[2]; // Bits 0..63 de cada color
+    private final long[] high = new long[2]; // Bits 64..127 de cada color
+    private final int[] heights; // Número de fichas de cada columna
+    private int moves; // Número de fichas en el tablero
+    private long hash; // Hash Zobrist de la posición, actualizado en cada jugada
+    private long mirrorHash; // Hash Zobrist de la posición reflejada horizontalmente
+
+    /**
+     * Constructor de un tablero vacío.
+     *
+     * @param size Tamaño del lado del tablero.
+     * @throws IllegalArgumentException si el tablero no cabe en 128 bits.
+     */
+    public Bitboard(int size) {
+        if (size < 1 || size * size > MAX_CELLS) {
+            throw new IllegalArgumentException("Tamaño de tablero no soportado: " + size);
+        }
+        this.size = size;
+        this.heights = new int[size];
+    }
+
+    /**
+     * Constructor de copia.
+     *
+     * @param other Tablero a copiar.
+     */
+    public Bitboard(Bitboard other) {
+        this.size = other.size;
+        this.heights = other.heights.clone();
+        System.arraycopy(other.low, 0, low, 0, 2);
+        System.arraycopy(other.high, 0, high, 0, 2);
+        this.moves = other.moves;
+        this.hash = other.hash;
+        this.mirrorHash = other.mirrorHash;
+    }
+
+    /**
+     * Crea un bitboard a partir de un objeto Tauler.
+     *
+     * @param t Tablero a convertir.
+     * @return Bitboard equivalente.
+     */
+    public static Bitboard fromTauler(Tauler t) {
+        Bitboard board = new Bitboard(t.getMida());
+        for (int c = 0; c < board.size; c++) {
+            for (int r = 0; r < board.size && t.getColor(r, c) != 0; r++) {
+                board.play(c, t.getColor(r, c));
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Crea un bitboard a partir de una matriz bidimensional [fila][columna].
+     *
+     * @param array Matriz a convertir.
+     * @return Bitboard equivalente.
+     */
+    public static Bitboard fromArray(int[][] array) {
+        Bitboard board = new Bitboard(array.length);
+        for (int c = 0; c < board.size; c++) {
+            for (int r = 0; r < board.size && array[r][c] != 0; r++) {
+                board.play(c, array[r][c]);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Índice interno (0 o 1) correspondiente a un color.
+     *
+     * @param color Color del jugador (1 o -1).
+     * @return 0 para el color 1 y 1 para el color -1.
+     */
+    static int side(int color) {
+        return color == 1 ? 0 : 1;
+    }
+
+    /**
+     * Índice del bit que corresponde a una casilla.
+     *
+     * @param row Fila de la casilla.
+     * @param col Columna de la casilla.
+     * @return Índice del bit.
+     */
+    public int cell(int row, int col) {
+        return col * size + row;
+    }
+
+    /**
+     * Coloca una ficha en la primera fila libre de una columna.
+     * No comprueba que la columna tenga espacio; véase {@link #canPlay(int)}.
+     *
+     * @param col Columna a jugar.
+     * @param color Color del jugador.
+     * @return Índice del bit de la casilla ocupada.
+     */
+    public int play(int col, int color) {
+        int cell = col * size + heights[col];
+        int s = side(color);
+        if (cell < 64) low[s] |= 1L << cell;
+        else high[s] |= 1L << (cell - 64);
+        hash ^= Zobrist.piece(s, cell);
+        mirrorHash ^= Zobrist.piece(s, (size - 1 - col) * size + heights[col]);
+        ++heights[col];
+        ++moves;
+        return cell;
+    }
+
+    /**
+     * Retira la última ficha colocada en una columna, deshaciendo {@link #play(int, int)}.
+     *
+     * @param col Columna de la que se retira la ficha.
+     */
+    public void undo(int col) {
+        --heights[col];
+        --moves;
+        int cell = col * size + heights[col];
+        int s = test(low[0], high[0], cell) ? 0 : 1;
+        hash ^= Zobrist.piece(s, cell);
+        mirrorHash ^= Zobrist.piece(s, (size - 1 - col) * size + heights[col]);
+        if (cell < 64) {
+            long mask = ~(1L << cell);
+            low[0] &= mask;
+            low[1] &= mask;
+        } else {
+            long mask = ~(1L << (cell - 64));
+            high[0] &= mask;
+            high[1] &= mask;
+        }
+    }
+
+    /**
+     * Consulta si se puede jugar en una columna.
+     *
+     * @param col La columna a consultar.
+     * @return true si la columna tiene espacio libre.
+     */
+    public boolean canPlay(int col) {
+        return heights[col] < size;
+    }
+
+    /**
+     * Devuelve el color de una casilla.
+     *
+     * @param row Fila de la casilla.
+     * @param col Columna de la casilla.
+     * @return 1, -1 o 0 si la casilla está vacía.
+     */
+    public int get(int row, int col) {
+        int cell = col * size + row;
+        if (test(low[0], high[0], cell)) return 1;
+        if (test(low[1], high[1], cell)) return -1;
+        return 0;
+    }
+
+    /**
+     * Comprueba si un bit está activo en una pareja de longs.
+     *
+     * @param low Bits 0..63.
+     * @param high Bits 64..127.
+     * @param cell Índice del bit.
+     * @return true si el bit está activo.
+     */
+    static boolean test(long low, long high, int cell) {
+        return cell < 64 ? (low >>> cell & 1L) != 0 : (high >>> (cell - 64) & 1L) != 0;
+    }
+
+    /**
+     * @return Tamaño del lado del tablero.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param col Columna a consultar.
+     * @return Número de fichas en la columna.
+     */
+    public int height(int col) {
+        return heights[col];
+    }
+
+    /**
+     * @return Número de fichas en el tablero.
+     */
+    public int moveCount() {
+        return moves;
+    }
+
+    /**
+     * @return true si no queda ninguna casilla libre.
+     */
+    public boolean isFull() {
+        return moves == size * size;
+    }
+
+    /**
+     * @return Hash Zobrist de la posición.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * @return Hash Zobrist de la posición reflejada horizontalmente.
+     */
+    public long mirrorHash() {
+        return mirrorHash;
+    }
+
+    /**
+     * Hash compartido por la posición y su reflejo: el menor de los dos.
+     *
+     * @return Hash canónico de la posición.
+     */
+    public long canonicalHash() {
+        return Math.min(hash, mirrorHash);
+    }
+
+    /**
+     * Comprueba casilla a casilla si la posición coincide con su reflejo horizontal.
+     *
+     * @return true si la posición es simétrica.
+     */
+    public boolean isSymmetric() {
+        for (int c = 0; c < size / 2; c++) {
+            int m = size - 1 - c;
+            if (heights[c] != heights[m]) return false;
+            for (int r = 0; r < heights[c]; r++) {
+                if (get(r, c) != get(r, m)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indica si el hash canónico es el del reflejo. En ese caso, una columna guardada para
+     * la posición canónica c corresponde a la columna lado - 1 - c de esta posición.
+     *
+     * @return true si la posición canónica es la reflejada.
+     */
+    public boolean isMirrored() {
+        return mirrorHash < hash;
+    }
+
+    /**
+     * @param color Color del jugador.
+     * @return Bits 0..63 de las fichas del color.
+     */
+    public long low(int color) {
+        return low[side(color)];
+    }
+
+    /**
+     * @param color Color del jugador.
+     * @return Bits 64..127 de las fichas del color.
+     */
+    public long high(int color) {
+        return high[side(color)];
+    }
+}
@@ -0,0 +1,73 @@
+package edu.epsevg.prop.lab.c4;
+
+/**
+ * Ordenación estática de jugadas: primero la jugada de la tabla o de la variante
+ * principal y después las columnas del centro hacia los extremos.
+ */
+public class CenterMoveOrdering implements MoveOrdering {
+
+    protected final int size; // Tamaño del lado del tablero
+    protected final int[] centerRank; // Prioridad de cada columna, mayor cuanto más central
+
+    /**
+     * Constructor de CenterMoveOrdering.
+     *
+     * @param size Tamaño del tablero.
+     */
+    public CenterMoveOrdering(int size) {
+        this.size = size;
+        this.centerRank = centerRanks(size);
+    }
+
+    /**
+     * Calcula la prioridad estática de cada columna: mayor cuanto más cerca del centro.
+     *
+     * @param size Tamaño del tablero.
+     * @return Prioridad de cada columna; no hay dos columnas con la misma.
+     */
+    static int[] centerRanks(int size) {
+        int[] rank = new int[size];
+        for (int col = 0; col < size; col++) {
+            // A igual distancia del centro se prefiere la columna de la derecha, la mitad que
+            // se conserva al podar por simetría
+            rank[col] = 2 * size - 2 * Math.abs(2 * col - (size - 1)) + (2 * col >= size - 1 ? 1 : 0);
+        }
+        return rank;
+    }
+
+    @Override
+    public void newSearch() {
+    }
+
+    @Override
+    public void order(int[] list, int count, int ply, int color, int hashMove) {
+        // Ordenación por inserción, la lista tiene como mucho una jugada por columna
+        for (int i = 1; i < count; i++) {
+            int col = list[i];
+            int key = key(col, ply, color, hashMove);
+            int j = i - 1;
+            while (j >= 0 && key(list[j], ply, color, hashMove) < key) {
+                list[j + 1] = list[j];
+                j--;
+            }
+            list[j + 1] = col;
+        }
+    }
+
+    /**
+     * Prioridad de una jugada; las de mayor prioridad se exploran primero.
+     *
+     * @param col Columna a puntuar.
+     * @param ply Distancia del nodo a la raíz.
+     * @param color Color del jugador que mueve.
+     * @param hashMove Jugada de la tabla o de la variante principal, o -1.
+     * @return Prioridad de la jugada.
+     */
+    protected int key(int col, int ply, int color, int hashMove) {
+        return col == hashMove ? Integer.MAX_VALUE : centerRank[col];
+    }
+
+    @Override
+    public void cutoff(int col, int ply, int color, int depth) {
+    }
+}
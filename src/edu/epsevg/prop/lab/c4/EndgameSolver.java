@@ -0,0 +1,322 @@
+package edu.epsevg.prop.lab.c4;
+
+/**
+ * Clase EndgameSolver que resuelve exactamente las posiciones con pocas casillas libres.
+ *
+ * En lugar de cortar a una profundidad y puntuar con la heurística, explora hasta el final
+ * de la partida. Las puntuaciones siguen la escala de {@link Search}: una victoria vale
+ * {@code WIN_SCORE} menos la distancia en jugadas desde la raíz, una derrota lo mismo en
+ * negativo y el empate 0, así que entre dos victorias se elige la más rápida y entre dos
+ * derrotas la más lenta.
+ *
+ * Las amenazas (véase {@link ThreatAnalysis}) resuelven sin buscar los nodos con una
+ * victoria inmediata o una derrota inevitable y dejan una sola jugada cuando hay que bloquear.
+ *
+ * El valor exacto se encuentra al estilo MTD(f): una serie de búsquedas de ventana nula
+ * que primero deciden entre victoria, empate o derrota (la primera prueba es contra 0) y
+ * después acotan la distancia por bisección. Cada prueba reaprovecha las cotas que las
+ * anteriores dejaron en la tabla de transposiciones, donde las entradas del resolvedor se
+ * guardan con una clave propia (véase {@link Zobrist#solved()}).
+ *
+ * Una instancia no debe usarse desde varios hilos a la vez.
+ */
+public class EndgameSolver {
+
+    private static final int CHECK_INTERVAL = 1023; // Nodos entre consultas del reloj (potencia de 2 menos 1)
+
+    private final Heuristica heuristica; // Heurística, solo para detectar las líneas completas
+    private final ThreatAnalysis threats; // Victorias inmediatas y jugadas forzadas
+    private final int size; // Tamaño del lado del tablero
+    private final TranspositionTable tt; // Tabla de transposiciones, puede ser null
+    private final int[][] moves; // Jugadas candidatas de cada nivel (ply)
+    private final int[] centerRank; // Prioridad de cada columna según su cercanía al centro
+
+    private Bitboard board; // Tablero sobre el que se aplican y deshacen las jugadas
+    private long nodes; // Nodos explorados en la última resolución
+    private long betaCutoffs; // Podas beta
+    private long firstMoveCutoffs; // Podas beta producidas por la primera jugada explorada
+    private long ttProbes; // Consultas a la tabla de transposiciones
+    private long ttHits; // Consultas que encontraron la posición
+    private int probes; // Búsquedas de ventana nula de la última resolución
+    private long elapsedNanos; // Duración de la última resolución
+    private boolean timed; // Indica si la resolución tiene límite de tiempo
+    private long deadline; // Instante (System.nanoTime) en que debe terminar
+    private boolean aborted; // Indica que la resolución se ha abortado
+    private volatile boolean stopRequested; // Petición de parada desde otro hilo
+    private int empty; // Casillas libres en la raíz
+    private int bestColumn; // Mejor columna de la última resolución
+    private int bestScore; // Puntuación exacta de la mejor columna
+
+    /**
+     * Constructor de EndgameSolver.
+     *
+     * @param heuristica Heurística del tablero, para detectar las victorias.
+     * @param size Tamaño del tablero.
+     * @param tt Tabla de transposiciones, que puede compartirse con {@link Search}, o null.
+     */
+    public EndgameSolver(Heuristica heuristica, int size, TranspositionTable tt) {
+        this.heuristica = heuristica;
+        this.threats = new ThreatAnalysis(heuristica);
+        this.size = size;
+        this.tt = tt;
+        this.moves = new int[size * size + 1][size];
+        this.centerRank = CenterMoveOrdering.centerRanks(size);
+    }
+
+    /**
+     * Resuelve una posición sin límite de tiempo.
+     * El tablero se modifica durante la búsqueda pero se devuelve en su estado original.
+     *
+     * @param position Tablero actual, no terminado.
+     * @param color Color del jugador que mueve.
+     * @return Columna óptima.
+     */
+    public int solve(Bitboard position, int color) {
+        timed = false;
+        stopRequested = false;
+        return run(position, color);
+    }
+
+    /**
+     * Resuelve una posición, abandonando si se supera el tiempo.
+     *
+     * @param position Tablero actual, no terminado.
+     * @param color Color del jugador que mueve.
+     * @param deadline Instante, según {@link System#nanoTime()}, en que debe terminar.
+     * @return Columna óptima, o -1 si no ha dado tiempo a resolverla.
+     */
+    public int solve(Bitboard position, int color, long deadline) {
+        this.timed = true;
+        this.deadline = deadline;
+        stopRequested = false;
+        return run(position, color);
+    }
+
+    /**
+     * Busca el valor exacto con pruebas de ventana nula y después una columna que lo alcance.
+     *
+     * @param position Tablero actual.
+     * @param color Color del jugador que mueve.
+     * @return Columna óptima, o -1 si se aborta.
+     */
+    private int run(Bitboard position, int color) {
+        long start = System.nanoTime();
+        this.board = position;
+        this.empty = size * size - position.moveCount();
+        nodes = 0;
+        betaCutoffs = 0;
+        firstMoveCutoffs = 0;
+        ttProbes = 0;
+        ttHits = 0;
+        probes = 0;
+        aborted = false;
+        bestColumn = -1;
+        bestScore = 0;
+        if (tt != null) tt.nextGeneration();
+        threats.reset(position);
+
+        // Cada prueba devuelve una cota del valor y reduce el intervalo [lo, hi] que lo contiene
+        int lo = -Search.WIN_SCORE, hi = Search.WIN_SCORE;
+        while (lo < hi && !aborted) {
+            int test = lo + (hi - lo) / 2;
+            int score = probe(test, color, 0);
+            if (score <= test) hi = score;
+            else lo = score;
+        }
+
+        // Primera columna, en orden de preferencia, que alcanza el valor
+        int value = lo;
+        int[] list = moves[0];
+        int allowed = threats.winningColumns(board, color);
+        if (allowed == 0) allowed = threats.candidates(board, color) & ~ThreatAnalysis.LOST;
+        int count = generate(list, -1, allowed);
+        for (int i = 0; i < count && !aborted && bestColumn < 0; i++) {
+            int col = list[i];
+            int cell = board.play(col, color);
+            threats.play(cell, color);
+            int score = heuristica.winningMove(board, cell, color) ? Search.WIN_SCORE - 1
+                      : board.isFull() ? 0
+                      : -probe(-value, -color, 1);
+            board.undo(col);
+            threats.undo(cell, color);
+            if (score >= value) bestColumn = col;
+        }
+        bestScore = value;
+        elapsedNanos = System.nanoTime() - start;
+        return aborted ? -1 : bestColumn;
+    }
+
+    /**
+     * Prueba de ventana nula: indica si el valor del nodo supera {@code test}.
+     *
+     * @param test Valor a probar.
+     * @param color Color del jugador que mueve.
+     * @param ply Distancia del nodo a la raíz.
+     * @return Cota del valor: mayor que test si lo supera, menor o igual si no.
+     */
+    private int probe(int test, int color, int ply) {
+        ++probes;
+        return negamax(test, test + 1, color, ply);
+    }
+
+    /**
+     * Negamax con poda alfa-beta hasta el final de la partida.
+     *
+     * @param alpha Valor alfa para la poda.
+     * @param beta Valor beta para la poda.
+     * @param color Color del jugador que mueve.
+     * @param ply Distancia a la raíz.
+     * @return Puntuación del nodo para el jugador que mueve (sin significado si se aborta).
+     */
+    private int negamax(int alpha, int beta, int color, int ply) {
+        // Una victoria inmediata o una derrota inevitable no necesitan más búsqueda
+        if (threats.winningColumns(board, color) != 0) return Search.WIN_SCORE - ply - 1;
+        int allowed = threats.candidates(board, color);
+        if (allowed < 0) return -(Search.WIN_SCORE - ply - 2);
+
+        // Sin victoria inmediata, lo mejor posible es ganar con la siguiente jugada propia
+        // y lo peor, perder con la siguiente del rival
+        int max = Search.WIN_SCORE - ply - 3;
+        if (beta > max) {
+            beta = max;
+            if (alpha >= beta) return beta;
+        }
+        int min = -(Search.WIN_SCORE - ply - 2);
+        if (alpha < min) {
+            alpha = min;
+            if (alpha >= beta) return alpha;
+        }
+
+        int alphaOrig = alpha;
+        long key = 0L;
+        int hashMove = -1;
+        boolean mirrored = board.isMirrored(); // Las jugadas de la tabla están en la orientación canónica
+        if (tt != null) {
+            key = board.canonicalHash() ^ Zobrist.side(color) ^ Zobrist.solved();
+            long entry = tt.probe(key);
+            ++ttProbes;
+            if (entry != 0L) {
+                ++ttHits;
+                hashMove = TranspositionTable.move(entry);
+                if (mirrored && hashMove >= 0) hashMove = size - 1 - hashMove;
+                int score = Search.fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT) return score;
+                if (bound == TranspositionTable.LOWER && score > alpha) alpha = score;
+                else if (bound == TranspositionTable.UPPER && score < beta) beta = score;
+                if (alpha >= beta) return score;
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = generate(list, hashMove, allowed);
+        int best = -Search.INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < count; ++i) {
+            int col = list[i];
+            ++nodes;
+            if ((nodes & CHECK_INTERVAL) == 0
+                    && (stopRequested || (timed && System.nanoTime() - deadline > 0))) {
+                aborted = true;
+            }
+            int cell = board.play(col, color);
+            threats.play(cell, color);
+            int score = board.isFull() ? 0 : -negamax(-beta, -alpha, -color, ply + 1);
+            board.undo(col);
+            threats.undo(cell, color);
+            if (aborted) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = col;
+            }
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) { // Poda
+                ++betaCutoffs;
+                if (i == 0) ++firstMoveCutoffs;
+                break;
+            }
+        }
+
+        if (tt != null) {
+            int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                      : best >= beta ? TranspositionTable.LOWER
+                      : TranspositionTable.EXACT;
+            int move = mirrored && bestMove >= 0 ? size - 1 - bestMove : bestMove;
+            tt.store(key, size * size - board.moveCount(), bound, Search.toTable(best, ply), move, true);
+        }
+        return best;
+    }
+
+    /**
+     * Genera las jugadas del nodo ordenadas: primero la de la tabla y después de la columna
+     * central hacia fuera. En una posición simétrica solo se generan las de la mitad derecha.
+     *
+     * @param list Buffer de salida.
+     * @param hashMove Jugada de la tabla, o -1.
+     * @param allowed Máscara de columnas a generar (véase {@link ThreatAnalysis#candidates}).
+     * @return Número de jugadas generadas.
+     */
+    private int generate(int[] list, int hashMove, int allowed) {
+        int count = 0;
+        int first = board.hash() == board.mirrorHash() && board.isSymmetric() ? size / 2 : 0;
+        for (int col = first; col < size; ++col) {
+            if ((allowed >> col & 1) == 0) continue;
+            int key = col == hashMove ? Integer.MAX_VALUE : centerRank[col];
+            int j = count++;
+            while (j > 0 && (list[j - 1] == hashMove ? Integer.MAX_VALUE : centerRank[list[j - 1]]) < key) {
+                list[j] = list[j - 1];
+                --j;
+            }
+            list[j] = col;
+        }
+        return count;
+    }
+
+    /**
+     * Pide que la resolución en curso se aborte lo antes posible. Se puede llamar desde otro hilo.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @return Mejor columna de la última resolución, o -1 si se abortó.
+     */
+    public int getBestColumn() {
+        return aborted ? -1 : bestColumn;
+    }
+
+    /**
+     * @return Puntuación exacta de la última resolución, relativa al color que mueve en la raíz.
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return Número de jugadas exploradas en la última resolución.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Número de búsquedas de ventana nula de la última resolución.
+     */
+    public int getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return Métricas de la última resolución; la profundidad es el número de casillas libres.
+     */
+    public SearchStats getStats() {
+        long[] depthNanos = new long[empty + 1];
+        long[] depthNodes = new long[empty + 1];
+        depthNanos[empty] = elapsedNanos;
+        depthNodes[empty] = nodes;
+        return new SearchStats(nodes, 0, betaCutoffs, firstMoveCutoffs, ttProbes, ttHits,
+                empty, getBestColumn(), bestScore, elapsedNanos, depthNanos, depthNodes);
+    }
+}
@@ -0,0 +1,280 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Clase GameRecordReader que recorre un fichero de partidas escrito con
+ * {@link GameRecordWriter}.
+ *
+ * El fichero se proyecta en memoria y se lee sin copiarlo: el lector es un cursor que se
+ * sitúa sobre una partida con {@link #next()} y cuyos métodos leen directamente del buffer,
+ * sin crear objetos por partida ni tableros. Así se pueden recorrer millones de partidas;
+ * para reproducir una se juegan sus columnas sobre un {@link Bitboard}. Si el fichero acaba
+ * con una partida a medio escribir, se ignora.
+ *
+ * Un lector no debe usarse desde varios hilos a la vez; para recorrer el mismo fichero desde
+ * otro hilo se usa {@link #duplicate()}.
+ */
+public final class GameRecordReader {
+
+    private final ByteBuffer buffer; // Fichero proyectado en memoria
+    private final int size; // Tamaño del lado del tablero
+    private int next; // Posición de la siguiente partida
+    private int game; // Número de la partida actual
+    private int flags; // Indicadores de la partida actual
+    private int moves; // Jugadas de la partida actual
+    private int columnsOffset; // Posición de las columnas de la partida actual
+    private int timingsOffset; // Posición de los tiempos de la partida actual
+
+    /**
+     * Constructor de GameRecordReader a partir del contenido del fichero.
+     *
+     * @param buffer Contenido del fichero.
+     * @throws IOException Si no es un fichero de partidas.
+     */
+    private GameRecordReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < GameRecordWriter.HEADER_BYTES || buffer.getInt(0) != GameRecordWriter.MAGIC) {
+            throw new IOException("No es un fichero de partidas");
+        }
+        if (buffer.getInt(4) != GameRecordWriter.VERSION) {
+            throw new IOException("Versión de fichero de partidas no soportada: " + buffer.getInt(4));
+        }
+        this.size = buffer.getInt(8);
+        rewind();
+    }
+
+    /**
+     * Abre un fichero de partidas, proyectándolo en memoria en modo de solo lectura.
+     *
+     * @param file Fichero de partidas.
+     * @return Lector situado antes de la primera partida.
+     * @throws IOException Si no se puede leer, no es un fichero de partidas o supera 2 GB.
+     */
+    public static GameRecordReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Fichero de partidas demasiado grande: " + channel.size() + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new GameRecordReader(buffer);
+        }
+    }
+
+    /**
+     * @return Nuevo lector sobre el mismo fichero, situado antes de la primera partida.
+     */
+    public GameRecordReader duplicate() {
+        try {
+            return new GameRecordReader(buffer.duplicate());
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // La cabecera ya se comprobó
+        }
+    }
+
+    /**
+     * Vuelve a situar el lector antes de la primera partida.
+     */
+    public void rewind() {
+        next = GameRecordWriter.HEADER_BYTES;
+        moves = -1;
+    }
+
+    /**
+     * @return Tamaño del lado del tablero de las partidas.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Avanza a la siguiente partida.
+     *
+     * @return true si hay otra partida completa, false al final del fichero.
+     */
+    public boolean next() {
+        int limit = buffer.limit();
+        if (next + 2 > limit) return false;
+        int length = buffer.getShort(next) & 0xFFFF;
+        int start = next + 2;
+        if (length < 6 || start + length > limit) return false;
+
+        game = buffer.getInt(start);
+        flags = buffer.get(start + 4) & 0xFF;
+        moves = buffer.get(start + 5) & 0xFF;
+        columnsOffset = start + 6;
+        timingsOffset = columnsOffset + (moves + 1) / 2;
+        next = start + length;
+        return true;
+    }
+
+    /**
+     * @return Número de la partida actual.
+     */
+    public int game() {
+        return game;
+    }
+
+    /**
+     * @return Jugador (0 o 1) que jugó con el color 1 en la partida actual.
+     */
+    public int firstPlayer() {
+        return flags & GameRecordWriter.FIRST_PLAYER;
+    }
+
+    /**
+     * @return Jugador (0 o 1) ganador de la partida actual, o {@link GameResult#DRAW}.
+     */
+    public int winner() {
+        int code = flags >> GameRecordWriter.WINNER_SHIFT & 3;
+        return code == GameRecordWriter.WINNER_DRAW ? GameResult.DRAW : code;
+    }
+
+    /**
+     * @return Color (1 o -1) del ganador de la partida actual, o 0 si hubo tablas.
+     */
+    public int winnerColor() {
+        int winner = winner();
+        if (winner == GameResult.DRAW) return 0;
+        return winner == firstPlayer() ? 1 : -1;
+    }
+
+    /**
+     * @return true si la partida actual se decidió por una jugada ilegal.
+     */
+    public boolean isForfeit() {
+        return (flags & GameRecordWriter.FORFEIT) != 0;
+    }
+
+    /**
+     * @return true si la partida actual acabó porque el perdedor lanzó una excepción.
+     */
+    public boolean isError() {
+        return (flags & GameRecordWriter.ERROR) != 0;
+    }
+
+    /**
+     * @return Número de jugadas de la partida actual.
+     */
+    public int moveCount() {
+        return moves;
+    }
+
+    /**
+     * @param i Índice de la jugada, desde 0.
+     * @return Columna de la jugada; las pares son del color 1 y las impares del color -1.
+     */
+    public int column(int i) {
+        int packed = buffer.get(columnsOffset + (i >> 1));
+        return (i & 1) == 0 ? packed >> 4 & 0xF : packed & 0xF;
+    }
+
+    /**
+     * @return true si la partida actual guarda el tiempo de cada jugada.
+     */
+    public boolean hasTimings() {
+        return (flags & GameRecordWriter.TIMINGS) != 0;
+    }
+
+    /**
+     * Decodifica los tiempos de la partida actual; se guardan con precisión de microsegundos.
+     *
+     * @param out Array donde se escribe el tiempo de cada jugada en nanosegundos, de al
+     *            menos {@link #moveCount()} posiciones.
+     * @return Suma de los tiempos en nanosegundos, o -1 si la partida no los guarda.
+     */
+    public long thinkNanos(long[] out) {
+        if (!hasTimings()) return -1L;
+        long total = 0L;
+        int offset = timingsOffset;
+        for (int i = 0; i < moves; i++) {
+            long value = 0L;
+            int shift = 0, b;
+            do {
+                b = buffer.get(offset++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            out[i] = value * 1000L;
+            total += out[i];
+        }
+        return total;
+    }
+
+    /**
+     * @return Partida actual como {@link GameResult}, con tiempos a 0 si no se guardaron. El
+     *         registro no guarda las excepciones: una partida con error lleva una genérica.
+     */
+    public GameResult toGameResult() {
+        int[] columns = new int[moves];
+        for (int i = 0; i < moves; i++) columns[i] = column(i);
+        long[] times = new long[moves];
+        thinkNanos(times);
+        Throwable error = isError()
+                ? new IllegalStateException("Error del jugador (el registro no guarda la excepción)") : null;
+        return new GameResult(game, firstPlayer(), winner(), isForfeit(), error, columns, times);
+    }
+
+    /**
+     * Resume un fichero de partidas: resultados, duración media, tiempo medio por jugada y
+     * porcentaje de victorias del color 1 según la columna de apertura.
+     *
+     * Uso: {@code GameRecordReader fichero}.
+     *
+     * @param args Argumentos de la línea de comandos.
+     * @throws IOException Si no se puede leer el fichero.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Uso: GameRecordReader fichero");
+            return;
+        }
+        GameRecordReader reader = open(Paths.get(args[0]));
+        int size = reader.size();
+        long[] times = new long[size * size];
+        long[] openings = new long[size];
+        long[] openingWins = new long[size];
+        long games = 0, moves = 0, timedMoves = 0, nanos = 0, forfeits = 0, errors = 0;
+        long[] results = new long[3]; // Victorias del color 1, del color -1 y tablas
+
+        long start = System.nanoTime();
+        while (reader.next()) {
+            ++games;
+            moves += reader.moveCount();
+            int color = reader.winnerColor();
+            results[color == 1 ? 0 : color == -1 ? 1 : 2]++;
+            if (reader.isForfeit()) ++forfeits;
+            if (reader.isError()) ++errors;
+            if (reader.moveCount() > 0) {
+                int first = reader.column(0);
+                openings[first]++;
+                if (color == 1) openingWins[first]++;
+            }
+            long total = reader.thinkNanos(times);
+            if (total >= 0) {
+                nanos += total;
+                timedMoves += reader.moveCount();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%d partidas en un tablero de %d, leídas en %.2f s%n", games, size, elapsed / 1e9);
+        if (games == 0) return;
+        System.out.printf("color 1: %d, color -1: %d, tablas: %d, jugadas ilegales: %d, errores: %d%n",
+                results[0], results[1], results[2], forfeits, errors);
+        System.out.printf("%.1f jugadas por partida", (double) moves / games);
+        if (timedMoves > 0) System.out.printf(", %.2f ms por jugada", nanos / 1e6 / timedMoves);
+        System.out.println();
+        for (int col = 0; col < size; col++) {
+            if (openings[col] == 0) continue;
+            System.out.printf("apertura %d: %d partidas, %.1f%% victorias del color 1%n",
+                    col, openings[col], 100.0 * openingWins[col] / openings[col]);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Clase GameRecordWriter que guarda partidas en un fichero binario compacto, para
+ * analizarlas después con {@link GameRecordReader}.
+ *
+ * Formato (big endian):
+ * <pre>
+ *   cabecera (16 bytes): magic, versión, lado del tablero, reservado (int)
+ *   partida:             longitud del resto de la partida (unsigned short),
+ *                        número de partida (int), indicadores (byte), jugadas (byte),
+ *                        columnas (un nibble por jugada, el primero en los 4 bits altos),
+ *                        tiempos (un varint por jugada, en microsegundos; solo si los hay)
+ *   indicadores:         bit 0 jugador que empieza, bits 1-2 ganador (0, 1 o 2 si hay
+ *                        tablas), bit 3 jugada ilegal, bit 4 hay tiempos, bit 5 el
+ *                        perdedor lanzó una excepción
+ * </pre>
+ *
+ * Las partidas se acumulan en un buffer directo y se escriben en el {@link FileChannel}
+ * cuando se llena o al llamar a {@link #flush()}. Se puede usar desde varios hilos a la vez.
+ */
+public final class GameRecordWriter implements Closeable {
+
+    static final int MAGIC = 0x43344752; // "C4GR"
+    static final int VERSION = 1; // Versión del formato
+    static final int HEADER_BYTES = 16; // Tamaño de la cabecera
+    static final int FIRST_PLAYER = 0x01; // Indicador del jugador que empieza
+    static final int WINNER_SHIFT = 1; // Posición de los bits del ganador
+    static final int WINNER_DRAW = 2; // Valor de los bits del ganador en caso de tablas
+    static final int FORFEIT = 0x08; // Indicador de jugada ilegal
+    static final int TIMINGS = 0x10; // Indicador de tiempos presentes
+    static final int ERROR = 0x20; // Indicador de partida acabada por una excepción
+    private static final int BUFFER_BYTES = 1 << 16; // Tamaño del buffer de escritura
+    private static final int MAX_SIZE = 15; // Lado máximo: las columnas deben caber en un nibble
+
+    private final FileChannel channel; // Fichero de destino
+    private final ByteBuffer buffer; // Partidas pendientes de escribir
+    private final int size; // Tamaño del lado del tablero
+    private long games; // Partidas escritas por este escritor
+
+    /**
+     * Constructor de GameRecordWriter.
+     *
+     * @param file Fichero de destino.
+     * @param size Tamaño del tablero de las partidas.
+     * @param append true para añadir partidas a un fichero existente; si no, se sobrescribe.
+     *               Si acaba con una partida a medio escribir, se descarta antes de añadir.
+     * @throws IOException Si no se puede abrir o el fichero existente es de otro formato o tablero.
+     */
+    public GameRecordWriter(Path file, int size, boolean append) throws IOException {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Tamaño de tablero no soportado: " + size);
+        }
+        this.size = size;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        this.channel = append
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                   StandardOpenOption.WRITE);
+        try {
+            if (channel.size() > 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                while (header.hasRemaining() && channel.read(header, header.position()) >= 0) { }
+                if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("No es un fichero de partidas compatible");
+                }
+                if (header.getInt(8) != size) {
+                    throw new IOException("El fichero es de partidas en un tablero de " + header.getInt(8));
+                }
+                long end = lastRecordEnd();
+                if (end < channel.size()) channel.truncate(end); // Partida a medio escribir
+                channel.position(end);
+            } else {
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(0);
+            }
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Recorre las partidas del fichero abierto siguiendo sus longitudes.
+     *
+     * @return Posición donde acaba la última partida completa.
+     * @throws IOException Si no se puede leer.
+     */
+    private long lastRecordEnd() throws IOException {
+        long fileSize = channel.size();
+        long end = HEADER_BYTES;
+        ByteBuffer prefix = ByteBuffer.allocate(2);
+        while (end + 2 <= fileSize) {
+            prefix.clear();
+            while (prefix.hasRemaining() && channel.read(prefix, end + prefix.position()) >= 0) { }
+            int length = prefix.getShort(0) & 0xFFFF;
+            if (length < 6 || end + 2 + length > fileSize) break;
+            end += 2 + length;
+        }
+        return end;
+    }
+
+    /**
+     * Añade una partida jugada con {@link MatchRunner}.
+     *
+     * @param result Resultado de la partida.
+     * @throws IOException Si no se puede escribir.
+     */
+    public void write(GameResult result) throws IOException {
+        int moves = result.getMoveCount();
+        int[] columns = new int[moves];
+        long[] thinkNanos = new long[moves];
+        for (int i = 0; i < moves; i++) {
+            columns[i] = result.getColumn(i);
+            thinkNanos[i] = result.getThinkNanos(i);
+        }
+        write(result.getGame(), result.getFirstPlayer(), result.getWinner(), result.isForfeit(), result.isError(),
+              columns, thinkNanos);
+    }
+
+    /**
+     * Añade una partida.
+     *
+     * @param game Número de la partida.
+     * @param firstPlayer Jugador (0 o 1) que juega con el color 1.
+     * @param winner Jugador (0 o 1) ganador, o {@link GameResult#DRAW}.
+     * @param forfeit Indica si la partida se decidió por una jugada ilegal.
+     * @param columns Columnas jugadas, en orden.
+     * @param thinkNanos Tiempo de cada jugada en nanosegundos, o null si no se conoce.
+     * @throws IOException Si no se puede escribir.
+     */
+    public void write(int game, int firstPlayer, int winner, boolean forfeit,
+                      int[] columns, long[] thinkNanos) throws IOException {
+        write(game, firstPlayer, winner, forfeit, false, columns, thinkNanos);
+    }
+
+    /**
+     * Añade una partida que puede haber acabado por un error del perdedor.
+     *
+     * @param game Número de la partida.
+     * @param firstPlayer Jugador (0 o 1) que juega con el color 1.
+     * @param winner Jugador (0 o 1) ganador, o {@link GameResult#DRAW}.
+     * @param forfeit Indica si la partida se decidió por una jugada ilegal.
+     * @param error Indica si la partida acabó porque el perdedor lanzó una excepción.
+     * @param columns Columnas jugadas, en orden.
+     * @param thinkNanos Tiempo de cada jugada en nanosegundos, o null si no se conoce.
+     * @throws IOException Si no se puede escribir.
+     */
+    public synchronized void write(int game, int firstPlayer, int winner, boolean forfeit, boolean error,
+                                   int[] columns, long[] thinkNanos) throws IOException {
+        int moves = columns.length;
+        if (moves > size * size) {
+            throw new IllegalArgumentException("Demasiadas jugadas: " + moves);
+        }
+        int flags = (firstPlayer & 1)
+                  | (winner == GameResult.DRAW ? WINNER_DRAW : winner & 1) << WINNER_SHIFT
+                  | (forfeit ? FORFEIT : 0)
+                  | (error ? ERROR : 0)
+                  | (thinkNanos != null ? TIMINGS : 0);
+        int length = 6 + (moves + 1) / 2 + (thinkNanos != null ? 10 * moves : 0); // Cota superior
+        if (buffer.remaining() < 2 + length) flush();
+
+        int start = buffer.position();
+        buffer.putShort((short) 0); // Se rellena al final
+        buffer.putInt(game).put((byte) flags).put((byte) moves);
+        for (int i = 0; i < moves; i += 2) {
+            int high = checkColumn(columns[i]);
+            int low = i + 1 < moves ? checkColumn(columns[i + 1]) : 0;
+            buffer.put((byte) (high << 4 | low));
+        }
+        if (thinkNanos != null) {
+            for (int i = 0; i < moves; i++) putVarint(Math.max(0L, thinkNanos[i] / 1000L));
+        }
+        buffer.putShort(start, (short) (buffer.position() - start - 2));
+        ++games;
+    }
+
+    /**
+     * @param col Columna jugada.
+     * @return La misma columna, si es válida.
+     */
+    private int checkColumn(int col) {
+        if (col < 0 || col >= size) throw new IllegalArgumentException("Columna no válida: " + col);
+        return col;
+    }
+
+    /**
+     * Escribe un entero no negativo con 7 bits por byte; el bit alto indica que sigue otro byte.
+     *
+     * @param value Valor a escribir.
+     */
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Escribe en el fichero las partidas pendientes.
+     *
+     * @throws IOException Si no se puede escribir.
+     */
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * @return Partidas escritas con este escritor.
+     */
+    public synchronized long getGames() {
+        return games;
+    }
+
+    /**
+     * Escribe las partidas pendientes y cierra el fichero.
+     *
+     * @throws IOException Si no se puede escribir.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package edu.epsevg.prop.lab.c4;
+
+/**
+ * Clase GameResult con el resultado de una partida jugada por {@link MatchRunner}.
+ *
+ * Los jugadores se identifican por su posición en el enfrentamiento (0 el primero, 1 el
+ * segundo), no por su color, ya que los colores se alternan de una partida a la siguiente.
+ * El jugador de color 1 siempre empieza la partida. La instancia es inmutable.
+ */
+public final class GameResult {
+
+    public static final int DRAW = -1; // Valor de getWinner() en caso de tablas
+
+    private final int game; // Número de la partida dentro del enfrentamiento
+    private final int firstPlayer; // Jugador (0 o 1) que juega con el color 1 y empieza
+    private final int winner; // Jugador (0 o 1) que gana, o DRAW
+    private final boolean forfeit; // Indica que el perdedor hizo una jugada ilegal
+    private final Throwable error; // Excepción que lanzó el perdedor al calcular su jugada, o null
+    private final int[] columns; // Columnas jugadas, en orden
+    private final long[] thinkNanos; // Tiempo de cada jugada en nanosegundos
+
+    /**
+     * Constructor de GameResult.
+     *
+     * @param game Número de la partida.
+     * @param firstPlayer Jugador (0 o 1) que juega con el color 1.
+     * @param winner Jugador (0 o 1) ganador, o {@link #DRAW}.
+     * @param forfeit Indica si la partida se decidió por una jugada ilegal.
+     * @param columns Columnas jugadas, en orden.
+     * @param thinkNanos Tiempo de cada jugada en nanosegundos.
+     */
+    GameResult(int game, int firstPlayer, int winner, boolean forfeit, int[] columns, long[] thinkNanos) {
+        this(game, firstPlayer, winner, forfeit, null, columns, thinkNanos);
+    }
+
+    /**
+     * Constructor de GameResult para una partida que puede haber acabado por un error.
+     *
+     * @param game Número de la partida.
+     * @param firstPlayer Jugador (0 o 1) que juega con el color 1.
+     * @param winner Jugador (0 o 1) ganador, o {@link #DRAW}.
+     * @param forfeit Indica si la partida se decidió por una jugada ilegal.
+     * @param error Excepción que lanzó el perdedor al calcular su jugada, o null.
+     * @param columns Columnas jugadas, en orden.
+     * @param thinkNanos Tiempo de cada jugada en nanosegundos.
+     */
+    GameResult(int game, int firstPlayer, int winner, boolean forfeit, Throwable error,
+               int[] columns, long[] thinkNanos) {
+        this.game = game;
+        this.firstPlayer = firstPlayer;
+        this.winner = winner;
+        this.forfeit = forfeit;
+        this.error = error;
+        this.columns = columns;
+        this.thinkNanos = thinkNanos;
+    }
+
+    /**
+     * @return Número de la partida dentro del enfrentamiento, empezando en 0.
+     */
+    public int getGame() {
+        return game;
+    }
+
+    /**
+     * @return Jugador (0 o 1) que juega con el color 1 y hace la primera jugada.
+     */
+    public int getFirstPlayer() {
+        return firstPlayer;
+    }
+
+    /**
+     * @return Jugador (0 o 1) que gana la partida, o {@link #DRAW} si acaba en tablas.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return Color del ganador (1 o -1), o 0 si la partida acaba en tablas.
+     */
+    public int getWinnerColor() {
+        if (winner == DRAW) return 0;
+        return winner == firstPlayer ? 1 : -1;
+    }
+
+    /**
+     * @return true si el perdedor hizo una jugada ilegal.
+     */
+    public boolean isForfeit() {
+        return forfeit;
+    }
+
+    /**
+     * @return true si la partida acabó porque el perdedor lanzó una excepción.
+     */
+    public boolean isError() {
+        return error != null;
+    }
+
+    /**
+     * @return Excepción que lanzó el perdedor al calcular su jugada, o null si no hubo error.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return Número de jugadas válidas de la partida.
+     */
+    public int getMoveCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param move Índice de la jugada, empezando en 0.
+     * @return Columna jugada.
+     */
+    public int getColumn(int move) {
+        return columns[move];
+    }
+
+    /**
+     * @param move Índice de la jugada, empezando en 0.
+     * @return Tiempo que tardó el jugador en decidir la jugada, en nanosegundos.
+     */
+    public long getThinkNanos(int move) {
+        return thinkNanos[move];
+    }
+
+    /**
+     * @param player Jugador (0 o 1).
+     * @return Tiempo total que ha pensado el jugador durante la partida, en nanosegundos.
+     */
+    public long getTotalThinkNanos(int player) {
+        long total = 0L;
+        int start = player == firstPlayer ? 0 : 1;
+        for (int i = start; i < thinkNanos.length; i += 2) total += thinkNanos[i];
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        String result = winner == DRAW ? "tablas" : "gana J" + (winner + 1)
+                + (forfeit ? " (jugada ilegal)" : error != null ? " (error de J" + (2 - winner) + ": " + error + ")" : "");
+        return String.format("Partida %d: J%d empieza, %s en %d jugadas, J1 %.1f ms, J2 %.1f ms",
+                game, firstPlayer + 1, result, columns.length,
+                getTotalThinkNanos(0) / 1e6, getTotalThinkNanos(1) / 1e6);
+    }
+}
@@ -1,48 +1,191 @@
 package edu.epsevg.prop.lab.c4;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Properties;
 
 /**
  * Clase Heuristica que implementa métodos para evaluar posiciones en un tablero de juego
  * y determinar jugadas óptimas basadas en una puntuación heurística.
+ *
+ * Las dimensiones del tablero pertenecen a cada instancia y no cambian tras construirla,
+ * así que se pueden usar a la vez varias heurísticas de tamaños distintos y compartir una
+ * misma instancia entre hilos.
+ *
+ * Los pesos de la evaluación forman un vector (véase {@link #WEIGHT_NAMES}) que se puede
+ * ajustar con {@link HeuristicaTuner} y guardar en un fichero de pesos.
  */
 public class Heuristica {
 
-    // Variables estáticas para definir dimensiones y constantes del tablero
-    private static int ROW_COUNT; // Número de filas del tablero
-    private static int COLUMN_COUNT; // Número de columnas del tablero
-    final int WINDOW_LENGTH = 4; // Longitud de la ventana (4 fichas en línea)
+    public static final int WIN = 0; // Índice del peso de una ventana completa
+    public static final int THREE = 1; // Índice del peso de una ventana propia a la que falta una ficha
+    public static final int TWO = 2; // Índice del peso de una ventana propia a la que faltan dos fichas
+    public static final int OPPONENT_THREE = 3; // Índice del peso de una ventana del rival a la que falta una ficha
+    public static final int CENTRE = 4; // Índice del peso de cada ficha propia en una columna central
+    public static final String[] WEIGHT_NAMES = { "win", "three", "two", "opponentThree", "centre" }; // Nombres en el fichero
+    private static final int[] DEFAULT_WEIGHTS = { 100, 5, 2, -4, 3 }; // Pesos originales, escogidos a mano
+
+    // Dimensiones y constantes del tablero
+    private final int ROW_COUNT; // Número de filas del tablero
+    private final int COLUMN_COUNT; // Número de columnas del tablero
+    final int WINDOW_LENGTH; // Longitud de la ventana (fichas en línea para ganar)
     final int PLAYER_PIECE = 1; // Representación del jugador
     final int BOT_PIECE = -1; // Representación del bot
     final int EMPTY = 0; // Representación de un espacio vacío
+    final int CENTRE_VALUE; // Puntuación de cada ficha propia en una columna central
+    private final int[] weights; // Pesos de la evaluación, indexados por WIN, THREE...
+    private final LineTable lines; // Ventanas (líneas) del tablero precalculadas
 
     /**
-     * Constructor de la clase Heuristica.
+     * Constructor de la clase Heuristica para el 4 en raya.
      * Inicializa el tamaño del tablero.
      *
      * @param lado Tamaño del lado del tablero (tablero cuadrado).
      */
     public Heuristica(int lado) {
-        setROW_COUNT(lado); // Establece el número de filas
-        setCOLUMN_COUNT(Heuristica.ROW_COUNT); // Establece el número de columnas (igual a las filas)
+        this(lado, 4);
+    }
+
+    /**
+     * Constructor de la clase Heuristica para un número arbitrario de fichas en línea.
+     * Precalcula todas las ventanas del tablero.
+     *
+     * @param lado Tamaño del lado del tablero (tablero cuadrado).
+     * @param connect Fichas en línea necesarias para ganar.
+     */
+    public Heuristica(int lado, int connect) {
+        this(lado, connect, DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * Constructor de la clase Heuristica con unos pesos concretos.
+     *
+     * @param lado Tamaño del lado del tablero (tablero cuadrado).
+     * @param connect Fichas en línea necesarias para ganar.
+     * @param weights Pesos de la evaluación, en el orden de {@link #WEIGHT_NAMES}.
+     */
+    public Heuristica(int lado, int connect, int[] weights) {
+        if (weights.length != WEIGHT_NAMES.length) {
+            throw new IllegalArgumentException("Se esperaban " + WEIGHT_NAMES.length + " pesos");
+        }
+        this.ROW_COUNT = lado; // Establece el número de filas
+        this.COLUMN_COUNT = lado; // Establece el número de columnas (igual a las filas)
+        this.WINDOW_LENGTH = connect;
+        this.weights = weights.clone();
+        this.CENTRE_VALUE = this.weights[CENTRE];
+        this.lines = new LineTable(lado, connect);
+    }
+
+    /**
+     * @return Copia de los pesos originales de la evaluación.
+     */
+    public static int[] defaultWeights() {
+        return DEFAULT_WEIGHTS.clone();
+    }
+
+    /**
+     * @return Copia de los pesos de esta heurística.
+     */
+    public int[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Lee un fichero de pesos, en formato {@link Properties} con una clave por nombre de
+     * {@link #WEIGHT_NAMES}. Los pesos que falten conservan su valor original.
+     *
+     * @param file Fichero de pesos.
+     * @return Pesos leídos.
+     * @throws IOException Si no se puede leer o algún peso no es un entero.
+     */
+    public static int[] readWeights(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        int[] weights = defaultWeights();
+        for (int i = 0; i < WEIGHT_NAMES.length; i++) {
+            String value = properties.getProperty(WEIGHT_NAMES[i]);
+            if (value == null) continue;
+            try {
+                weights[i] = Integer.parseInt(value.trim());
+            } catch (NumberFormatException ex) {
+                throw new IOException("Peso no válido para " + WEIGHT_NAMES[i] + ": " + value, ex);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Escribe un fichero de pesos que se puede leer con {@link #readWeights(Path)}.
+     *
+     * @param file Fichero de destino.
+     * @param weights Pesos, en el orden de {@link #WEIGHT_NAMES}.
+     * @param comment Comentario de la cabecera, o null.
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    public static void writeWeights(Path file, int[] weights, String comment) throws IOException {
+        Properties properties = new Properties();
+        for (int i = 0; i < WEIGHT_NAMES.length; i++) {
+            properties.setProperty(WEIGHT_NAMES[i], Integer.toString(weights[i]));
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(out, comment);
+        }
     }
 
     /**
-     * Establece el número de filas del tablero.
+     * Indica si una columna es central. En tableros de lado par hay dos columnas centrales,
+     * para que la puntuación de una posición y la de su reflejo horizontal coincidan.
      *
-     * @param ROW_COUNT Número de filas.
+     * @param col Columna a consultar.
+     * @return true si la columna es central.
      */
-    public static void setROW_COUNT(int ROW_COUNT) {
-        Heuristica.ROW_COUNT = ROW_COUNT;
+    public boolean isCentreColumn(int col) {
+        int lado = lines.size();
+        return col == lado / 2 || (lado % 2 == 0 && col == lado / 2 - 1);
     }
 
     /**
-     * Establece el número de columnas del tablero.
+     * Resumen de los pesos de la evaluación: la puntuación de cada ventana posible y la de
+     * las columnas centrales. Permite descartar resultados guardados con otros pesos.
      *
-     * @param COLUMN_COUNT Número de columnas.
+     * @return Hash de los pesos.
+     */
+    public long weightsHash() {
+        long hash = 0xCBF29CE484222325L; // FNV-1a
+        for (int own = 0; own <= WINDOW_LENGTH; own++) {
+            for (int opp = 0; own + opp <= WINDOW_LENGTH; opp++) {
+                hash = (hash ^ evaluateWindow(own, opp, WINDOW_LENGTH - own - opp)) * 0x100000001B3L;
+            }
+        }
+        return (hash ^ CENTRE_VALUE) * 0x100000001B3L;
+    }
+
+    /**
+     * @return Tabla de ventanas (líneas) precalculada para este tablero.
+     */
+    public LineTable getLineTable() {
+        return lines;
+    }
+
+    /**
+     * @return Número de filas del tablero.
+     */
+    public int getROW_COUNT() {
+        return ROW_COUNT;
+    }
+
+    /**
+     * @return Número de columnas del tablero.
      */
-    public static void setCOLUMN_COUNT(int COLUMN_COUNT) {
-        Heuristica.COLUMN_COUNT = COLUMN_COUNT;
+    public int getCOLUMN_COUNT() {
+        return COLUMN_COUNT;
     }
 
     /**
@@ -79,58 +222,25 @@ public class Heuristica {
      */
     public int scorePosition(int[][] board, int piece) {
         int score = 0; // Inicializa la puntuación
+        int oppPiece = (piece == PLAYER_PIECE) ? BOT_PIECE : PLAYER_PIECE; // Define la pieza del oponente
+        int lado = lines.size();
 
-        // Evalúa la columna central del tablero
-        int[] centreArray = new int[ROW_COUNT];
-        for (int i = 0; i < ROW_COUNT; i++) {
-            centreArray[i] = board[i][COLUMN_COUNT / 2]; // Obtiene los valores de la columna central
-        }
-        int centreCount = 0; // Cuenta las piezas del jugador en la columna central
-        for (int i : centreArray) {
-            if (i == piece) centreCount++;
-        }
-        score += centreCount * 3; // Aumenta la puntuación por piezas en la columna central
-
-        // Evalúa las posiciones horizontales
-        for (int r = 0; r < ROW_COUNT; r++) { // Itera por filas
-            for (int c = 0; c < COLUMN_COUNT - 3; c++) { // Itera por columnas
-                int[] window = new int[WINDOW_LENGTH];
-                System.arraycopy(board[r], c, window, 0, WINDOW_LENGTH); // Obtiene una ventana de 4 espacios
-                score += evaluateWindow(window, piece); // Evalúa la ventana y actualiza la puntuación
-            }
-        }
-
-        // Evalúa las posiciones verticales
-        for (int c = 0; c < COLUMN_COUNT; c++) { // Itera por columnas
-            for (int r = 0; r < ROW_COUNT - 3; r++) { // Itera por filas
-                int[] window = new int[WINDOW_LENGTH];
-                for (int i = 0; i < WINDOW_LENGTH; i++) {
-                    window[i] = board[r + i][c]; // Crea una ventana vertical de 4 espacios
-                }
-                score += evaluateWindow(window, piece); // Evalúa la ventana y actualiza la puntuación
-            }
-        }
-
-        // Evalúa las diagonales positivas (\)
-        for (int r = 0; r < ROW_COUNT - 3; r++) {
-            for (int c = 0; c < COLUMN_COUNT - 3; c++) {
-                int[] window = new int[WINDOW_LENGTH];
-                for (int i = 0; i < WINDOW_LENGTH; i++) {
-                    window[i] = board[r + i][c + i]; // Crea una ventana diagonal positiva
-                }
-                score += evaluateWindow(window, piece); // Evalúa la ventana y actualiza la puntuación
+        // Evalúa las columnas centrales del tablero
+        for (int c = (lado - 1) / 2; c <= lado / 2; c++) {
+            for (int r = 0; r < lado; r++) {
+                if (board[r][c] == piece) score += CENTRE_VALUE; // Aumenta la puntuación por piezas en la columna central
             }
         }
 
-        // Evalúa las diagonales negativas (/)
-        for (int r = 0; r < ROW_COUNT - 3; r++) {
-            for (int c = 0; c < COLUMN_COUNT - 3; c++) {
-                int[] window = new int[WINDOW_LENGTH];
-                for (int i = 0; i < WINDOW_LENGTH; i++) {
-                    window[i] = board[r + 3 - i][c + i]; // Crea una ventana diagonal negativa
-                }
-                score += evaluateWindow(window, piece); // Evalúa la ventana y actualiza la puntuación
+        // Evalúa todas las ventanas: horizontales, verticales y diagonales
+        for (int line = 0; line < lines.lineCount(); line++) {
+            int own = 0, opp = 0;
+            for (int cell : lines.cells(line)) {
+                int color = board[cell % lado][cell / lado];
+                if (color == piece) own++;
+                else if (color == oppPiece) opp++;
             }
+            score += evaluateWindow(own, opp, WINDOW_LENGTH - own - opp); // Evalúa la ventana y actualiza la puntuación
         }
 
         return score; // Devuelve la puntuación total
@@ -144,24 +254,36 @@ public class Heuristica {
      * @return Puntuación de la ventana.
      */
     public int evaluateWindow(int[] window, int piece) {
-        int score = 0; // Inicializa la puntuación para la ventana
         int oppPiece = (piece == PLAYER_PIECE) ? BOT_PIECE : PLAYER_PIECE; // Define la pieza del oponente
+        return evaluateWindow(count(window, piece), count(window, oppPiece), count(window, EMPTY));
+    }
+
+    /**
+     * Evalúa una ventana de 4 espacios a partir del número de fichas de cada tipo.
+     *
+     * @param own Fichas del jugador actual en la ventana.
+     * @param opp Fichas del oponente en la ventana.
+     * @param empty Espacios vacíos en la ventana.
+     * @return Puntuación de la ventana.
+     */
+    public int evaluateWindow(int own, int opp, int empty) {
+        int score = 0; // Inicializa la puntuación para la ventana
 
         // Priorización de ganar
-        if (count(window, piece) == 4) {
-            score += 100; // Puntuación alta para 4 en línea
+        if (own == WINDOW_LENGTH) {
+            score += weights[WIN]; // Puntuación alta para 4 en línea
         }
         // Priorización de 3 en línea
-        else if (count(window, piece) == 3 && count(window, EMPTY) == 1) {
-            score += 5;
+        else if (own == WINDOW_LENGTH - 1 && empty == 1) {
+            score += weights[THREE];
         }
         // Priorización de 2 en línea
-        else if (count(window, piece) == 2 && count(window, EMPTY) == 2) {
-            score += 2;
+        else if (own == WINDOW_LENGTH - 2 && empty == 2) {
+            score += weights[TWO];
         }
         // Priorización de bloquear 3 en línea del oponente
-        if (count(window, oppPiece) == 3 && count(window, EMPTY) == 1) {
-            score -= 4; // Penalización si el oponente tiene 3 en línea con posibilidad de ganar
+        if (opp == WINDOW_LENGTH - 1 && empty == 1) {
+            score += weights[OPPONENT_THREE]; // Penalización si el oponente tiene 3 en línea con posibilidad de ganar
         }
 
         return score; // Devuelve la puntuación para la ventana
@@ -175,52 +297,15 @@ public class Heuristica {
      * @return true si el jugador tiene una jugada ganadora, de lo contrario false.
      */
     public boolean winningMove(int[][] board, int piece) {
-        // Verifica filas para jugadas ganadoras
-        for (int c = 0; c < COLUMN_COUNT - 3; c++) {
-            for (int r = 0; r < ROW_COUNT; r++) {
-                if (board[r][c]     == piece && board[r][c + 1] == piece &&
-                    board[r][c + 2] == piece && board[r][c + 3] == piece) {
-                        // System.out.printf("[-]%s has the winning move\n",
-                        // (piece == 1) ? "MinMaxBot" : "Profe");
-                    return true;
-                }
-            }
-        }
-
-        // Verifica columnas para jugadas ganadoras
-        for (int c = 0; c < COLUMN_COUNT; c++) {
-            for (int r = 0; r < ROW_COUNT - 3; r++) {
-                if (board[r][c]     == piece && board[r + 1][c] == piece &&
-                    board[r + 2][c] == piece && board[r + 3][c] == piece) {
-                        // System.out.printf("[|]%s has the winning move\n",
-                        // (piece == 1) ? "MinMaxBot" : "Profe");
-                    return true;
-                }
-            }
-        }
-
-        // Verifica diagonales positivas (\)
-        for (int c = 0; c < COLUMN_COUNT - 3; c++) {
-            for (int r = 0; r < ROW_COUNT - 3; r++) {
-                if (board[r][c]         == piece && board[r + 1][c + 1] == piece &&
-                    board[r + 2][c + 2] == piece && board[r + 3][c + 3] == piece) {
-                        // System.out.printf("[\\]%s has the winning move\n",
-                        // (piece == 1) ? "MinMaxBot" : "Profe");
-                    return true;
-                }
-            }
-        }
-
-        // Verifica diagonales negativas (/)
-        for (int c = 0; c < COLUMN_COUNT - 3; c++) {
-            for (int r = 3; r < ROW_COUNT; r++) {
-                if (board[r][c]         == piece && board[r - 1][c + 1] == piece &&
-                    board[r - 2][c + 2] == piece && board[r - 3][c + 3] == piece) {
-                        // System.out.printf("[/]%s has the winning move\n",
-                        // (piece == 1) ? "MinMaxBot" : "Profe");
-                    return true;
-                }
-            }
+        int lado = lines.size();
+        // Verifica filas, columnas y diagonales mediante las líneas precalculadas
+        for (int line = 0; line < lines.lineCount(); line++) {
+            int[] cells = lines.cells(line);
+            int i = 0;
+            while (i < cells.length && board[cells[i] % lado][cells[i] / lado] == piece)
+                ++i;
+            if (i == cells.length)
+                return true;
         }
 
         return false; // Devuelve falso si no hay jugadas ganadoras
@@ -272,6 +357,94 @@ public class Heuristica {
         return playerWin || botWin || possibleCol.isEmpty();
     }
 
+    /**
+     * Consulta en un bitboard si es posible jugar en una cierta columna.
+     * @param board El bitboard del juego.
+     * @param col La columna a consultar.
+     * @return Retorna true si es puede jugar en la columna consultada, false si no es posible jugar.
+     */
+    public boolean validLocation(Bitboard board, int col) {
+        return board.canPlay(col);
+    }
+
+    /**
+     * Simula una jugada sobre un bitboard en la primera fila libre de una columna.
+     * @param board El bitboard a jugar.
+     * @param col La columna a jugar.
+     * @param color El color del jugador.
+     */
+    public void play(Bitboard board, int col, int color) {
+        if (board.canPlay(col))
+            board.play(col, color);
+    }
+
+    /**
+     * Calcula la puntuación heurística de un bitboard. Equivale a
+     * {@link #scorePosition(int[][], int)} sin crear ninguna ventana intermedia.
+     *
+     * @param board Bitboard que representa el tablero.
+     * @param piece Pieza del jugador actual.
+     * @return Puntuación calculada para el tablero.
+     */
+    public int scorePosition(Bitboard board, int piece) {
+        int oppPiece = (piece == PLAYER_PIECE) ? BOT_PIECE : PLAYER_PIECE;
+        long ownLow = board.low(piece), ownHigh = board.high(piece);
+        long oppLow = board.low(oppPiece), oppHigh = board.high(oppPiece);
+        int score = 0;
+
+        // Evalúa las columnas centrales del tablero
+        int lado = lines.size();
+        for (int c = (lado - 1) / 2; c <= lado / 2; c++) {
+            for (int r = 0; r < board.height(c); r++) {
+                if (board.get(r, c) == piece) score += CENTRE_VALUE;
+            }
+        }
+
+        // Evalúa todas las ventanas contando los bits de cada máscara
+        for (int line = 0; line < lines.lineCount(); line++) {
+            long ml = lines.lowMask(line), mh = lines.highMask(line);
+            int own = Long.bitCount(ownLow & ml) + Long.bitCount(ownHigh & mh);
+            int opp = Long.bitCount(oppLow & ml) + Long.bitCount(oppHigh & mh);
+            score += evaluateWindow(own, opp, WINDOW_LENGTH - own - opp);
+        }
+
+        return score;
+    }
+
+    /**
+     * Verifica si un jugador tiene cuatro en línea en un bitboard.
+     *
+     * @param board Bitboard que representa el tablero.
+     * @param piece Pieza del jugador actual.
+     * @return true si el jugador tiene una jugada ganadora, de lo contrario false.
+     */
+    public boolean winningMove(Bitboard board, int piece) {
+        return lines.hasLine(board.low(piece), board.high(piece));
+    }
+
+    /**
+     * Verifica si la ficha colocada en una casilla forma cuatro en línea. Solo revisa las
+     * líneas que pasan por esa casilla, así que es mucho más barato que {@link #winningMove(Bitboard, int)}.
+     *
+     * @param board Bitboard que representa el tablero, con la ficha ya colocada.
+     * @param cell Casilla de la última ficha (véase {@link Bitboard#play(int, int)}).
+     * @param piece Pieza del jugador que ha colocado la ficha.
+     * @return true si la jugada es ganadora, de lo contrario false.
+     */
+    public boolean winningMove(Bitboard board, int cell, int piece) {
+        return lines.completesLine(board.low(piece), board.high(piece), cell);
+    }
+
+    /**
+     * Consulta en un bitboard si la partida ha terminado.
+     *
+     * @param board El bitboard a consultar.
+     * @return Retorna true si alguno de los jugadores ha ganado o si la tabla está llena, en caso contrario, retorna false.
+     */
+    public boolean finished(Bitboard board) {
+        return board.isFull() || winningMove(board, PLAYER_PIECE) || winningMove(board, BOT_PIECE);
+    }
+
     /**
      * Imprime la tabla en consola como un array 2x2. Solo es útil para realizar debugging.
      *
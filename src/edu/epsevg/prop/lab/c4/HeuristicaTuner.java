@@ -0,0 +1,458 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Clase HeuristicaTuner que ajusta los pesos de {@link Heuristica} con el método de Texel.
+ *
+ * Las partidas del corpus se convierten en posiciones etiquetadas con el resultado final,
+ * cada una desde el punto de vista de los dos jugadores. La evaluación es lineal en los
+ * pesos, así que cada posición se reduce una sola vez a su vector de características
+ * (cuántas ventanas de cada tipo tiene y cuántas fichas en las columnas centrales) y
+ * evaluarla con unos pesos es un producto escalar. El error es la media de
+ * {@code (resultado - sigmoide(K * evaluación))^2}; primero se ajusta la escala K con los
+ * pesos iniciales y después se prueba a subir o bajar cada peso de uno en uno mientras el
+ * error mejore. Tanto las características como cada cálculo del error se reparten entre
+ * los hilos de un {@link ForkJoinPool}.
+ *
+ * El corpus es un fichero de texto con una partida por línea: las columnas jugadas en base
+ * 36 y, separado por un espacio, el ganador (1, -1 o 0 si hay tablas). Se puede generar con
+ * partidas de MinMaxBot contra sí mismo que empiezan con unas jugadas al azar.
+ *
+ * Uso:
+ * <pre>
+ *   HeuristicaTuner corpus fichero [partidas] [profundidad] [jugadas al azar] [hilos]
+ *   HeuristicaTuner tune corpus pesos [escala] [hilos]
+ * </pre>
+ */
+public class HeuristicaTuner {
+
+    private static final int FEATURES = Heuristica.WEIGHT_NAMES.length; // Características por muestra
+    private static final int THRESHOLD = 1 << 13; // Muestras por tarea a partir de las que se divide
+    private static final int MAX_PASSES = 1000; // Pasadas máximas de la búsqueda local
+    private static final int INITIAL_STEP = 16; // Paso inicial de la búsqueda local
+
+    private final int size; // Tamaño del lado del tablero
+    private final Heuristica heuristica; // Líneas y columnas centrales del tablero
+    private final ForkJoinPool pool; // Hilos del ajuste
+    private short[] features; // Características de cada muestra: features[muestra * FEATURES + peso]
+    private float[] targets; // Resultado de cada muestra: 1 victoria, 0.5 tablas, 0 derrota
+    private int samples; // Número de muestras
+    private long evaluations; // Posiciones evaluadas desde el inicio del ajuste
+
+    /**
+     * Constructor de HeuristicaTuner.
+     *
+     * @param size Tamaño del tablero.
+     * @param threads Número de hilos.
+     */
+    public HeuristicaTuner(int size, int threads) {
+        this.size = size;
+        this.heuristica = new Heuristica(size);
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * Genera un corpus con partidas de MinMaxBot contra sí mismo. Cada partida empieza con
+     * unas jugadas al azar, para que no se repitan, y después ambos jugadores buscan a la
+     * profundidad indicada. Se descartan las que terminan durante las jugadas al azar.
+     *
+     * @param file Fichero de destino.
+     * @param games Número de partidas.
+     * @param depth Profundidad de las búsquedas.
+     * @param randomPlies Jugadas al azar al principio de cada partida.
+     * @param seed Semilla de las jugadas al azar.
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    public void generate(Path file, int games, final int depth, final int randomPlies, long seed) throws IOException {
+        final String[] lines = new String[games];
+        final SplittableRandom root = new SplittableRandom(seed);
+        final SplittableRandom[] randoms = new SplittableRandom[games];
+        for (int g = 0; g < games; g++) randoms[g] = root.split();
+        final ThreadLocal<Search> searches = new ThreadLocal<Search>() {
+            @Override
+            protected Search initialValue() {
+                return new Search(heuristica, size,
+                        new TranspositionTable(18, TranspositionTable.ReplacementPolicy.AGED_DEPTH_PREFERRED));
+            }
+        };
+        pool.invoke(new RangeAction(0, games, 1,
+                game -> lines[game] = selfPlay(searches.get(), depth, randomPlies, randoms[game])));
+
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (String line : lines) {
+                if (line == null) continue;
+                out.write(line);
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Juega una partida de MinMaxBot contra sí mismo.
+     *
+     * @param search Búsqueda del hilo actual.
+     * @param depth Profundidad de las búsquedas.
+     * @param randomPlies Jugadas al azar al principio.
+     * @param random Generador de las jugadas al azar.
+     * @return Línea del corpus, o null si la partida termina durante las jugadas al azar.
+     */
+    private String selfPlay(Search search, int depth, int randomPlies, SplittableRandom random) {
+        Bitboard board = new Bitboard(size);
+        StringBuilder moves = new StringBuilder();
+        int color = 1, winner = 0;
+        while (!board.isFull()) {
+            int col;
+            if (board.moveCount() < randomPlies) {
+                do col = random.nextInt(size); while (!board.canPlay(col));
+            } else {
+                col = search.search(board, color, depth);
+            }
+            int cell = board.play(col, color);
+            moves.append(Character.forDigit(col, 36));
+            if (heuristica.winningMove(board, cell, color)) {
+                if (board.moveCount() <= randomPlies) return null;
+                winner = color;
+                break;
+            }
+            color = -color;
+        }
+        return moves + " " + winner;
+    }
+
+    /**
+     * Carga un corpus y calcula las características de todas sus posiciones no terminadas.
+     *
+     * @param file Fichero del corpus.
+     * @return Número de muestras (dos por posición).
+     * @throws IOException Si no se puede leer o una línea no es válida.
+     */
+    public int load(Path file) throws IOException {
+        final List<String> games = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.trim().isEmpty()) games.add(line.trim());
+            }
+        }
+
+        // Muestras de cada partida: una por jugador en cada posición anterior a la última jugada
+        final int[] first = new int[games.size() + 1];
+        for (int g = 0; g < games.size(); g++) {
+            int space = games.get(g).indexOf(' ');
+            if (space < 1) throw new IOException("Línea " + (g + 1) + " no válida: " + games.get(g));
+            first[g + 1] = first[g] + 2 * space;
+        }
+        samples = first[games.size()];
+        features = new short[samples * FEATURES];
+        targets = new float[samples];
+
+        final IOException[] error = new IOException[1];
+        pool.invoke(new RangeAction(0, games.size(), 64, game -> {
+            try {
+                replay(games.get(game), first[game]);
+            } catch (IOException ex) {
+                synchronized (error) {
+                    error[0] = new IOException("Línea " + (game + 1) + ": " + ex.getMessage());
+                }
+            }
+        }));
+        if (error[0] != null) throw error[0];
+        return samples;
+    }
+
+    /**
+     * Rehace una partida del corpus y guarda las muestras de sus posiciones.
+     *
+     * @param line Línea del corpus.
+     * @param sample Índice de la primera muestra de la partida.
+     * @throws IOException Si la línea no es válida.
+     */
+    private void replay(String line, int sample) throws IOException {
+        int space = line.indexOf(' ');
+        int winner;
+        try {
+            winner = Integer.parseInt(line.substring(space + 1).trim());
+        } catch (NumberFormatException ex) {
+            throw new IOException("resultado no válido");
+        }
+        Bitboard board = new Bitboard(size);
+        int color = 1;
+        for (int i = 0; i < space; i++) {
+            for (int piece = 1; piece >= -1; piece -= 2) {
+                extract(board, piece, features, sample * FEATURES);
+                targets[sample++] = winner == piece ? 1f : winner == 0 ? 0.5f : 0f;
+            }
+            int col = Character.digit(line.charAt(i), 36);
+            if (col < 0 || col >= size || !board.canPlay(col)) throw new IOException("jugada no válida");
+            board.play(col, color);
+            color = -color;
+        }
+    }
+
+    /**
+     * Calcula las características de una posición, que multiplicadas por los pesos dan
+     * {@link Heuristica#scorePosition(Bitboard, int)}.
+     *
+     * @param board Posición.
+     * @param piece Jugador desde cuyo punto de vista se evalúa.
+     * @param out Array de destino.
+     * @param offset Posición de la primera característica en el array.
+     */
+    void extract(Bitboard board, int piece, short[] out, int offset) {
+        LineTable lines = heuristica.getLineTable();
+        int connect = lines.connect();
+        long ownLow = board.low(piece), ownHigh = board.high(piece);
+        long oppLow = board.low(-piece), oppHigh = board.high(-piece);
+        int[] counts = new int[FEATURES];
+        for (int line = 0; line < lines.lineCount(); line++) {
+            long ml = lines.lowMask(line), mh = lines.highMask(line);
+            int own = Long.bitCount(ownLow & ml) + Long.bitCount(ownHigh & mh);
+            int opp = Long.bitCount(oppLow & ml) + Long.bitCount(oppHigh & mh);
+            int empty = connect - own - opp;
+            if (own == connect) counts[Heuristica.WIN]++;
+            else if (own == connect - 1 && empty == 1) counts[Heuristica.THREE]++;
+            else if (own == connect - 2 && empty == 2) counts[Heuristica.TWO]++;
+            if (opp == connect - 1 && empty == 1) counts[Heuristica.OPPONENT_THREE]++;
+        }
+        for (int c = 0; c < size; c++) {
+            if (!heuristica.isCentreColumn(c)) continue;
+            for (int r = 0; r < board.height(c); r++) {
+                if (board.get(r, c) == piece) counts[Heuristica.CENTRE]++;
+            }
+        }
+        for (int k = 0; k < FEATURES; k++) out[offset + k] = (short) counts[k];
+    }
+
+    /**
+     * Error medio del corpus con unos pesos, calculado en paralelo.
+     *
+     * @param weights Pesos de la evaluación.
+     * @param k Escala de la sigmoide.
+     * @return Error cuadrático medio.
+     */
+    public double loss(int[] weights, double k) {
+        evaluations += samples;
+        return pool.invoke(new LossTask(weights, k, 0, samples)) / samples;
+    }
+
+    /**
+     * Ajusta la escala K de la sigmoide que mejor explica los resultados con unos pesos,
+     * por búsqueda de la sección áurea sobre log(K).
+     *
+     * @param weights Pesos de la evaluación.
+     * @return Escala K.
+     */
+    public double fitScale(int[] weights) {
+        double lo = Math.log(1e-5), hi = Math.log(10.0);
+        double ratio = (Math.sqrt(5) - 1) / 2;
+        double a = hi - ratio * (hi - lo), b = lo + ratio * (hi - lo);
+        double la = loss(weights, Math.exp(a)), lb = loss(weights, Math.exp(b));
+        for (int i = 0; i < 40; i++) {
+            if (la < lb) {
+                hi = b;
+                b = a;
+                lb = la;
+                a = hi - ratio * (hi - lo);
+                la = loss(weights, Math.exp(a));
+            } else {
+                lo = a;
+                a = b;
+                la = lb;
+                b = lo + ratio * (hi - lo);
+                lb = loss(weights, Math.exp(b));
+            }
+        }
+        return Math.exp((lo + hi) / 2);
+    }
+
+    /**
+     * Búsqueda local de Texel: sube o baja cada peso un paso mientras el error mejore. El paso
+     * empieza en {@value #INITIAL_STEP} y se divide por dos cada vez que una pasada no mejora
+     * nada, hasta terminar con pasos de una unidad. Los pesos que no aparecen en ninguna
+     * muestra (las ventanas completas, en un corpus sin posiciones terminadas) no se tocan.
+     *
+     * @param initial Pesos iniciales.
+     * @param k Escala de la sigmoide.
+     * @return Pesos ajustados.
+     */
+    public int[] tune(int[] initial, double k) {
+        int[] weights = initial.clone();
+        boolean[] used = new boolean[FEATURES];
+        for (int i = 0; i < features.length; i++) {
+            if (features[i] != 0) used[i % FEATURES] = true;
+        }
+        double best = loss(weights, k);
+        int step = INITIAL_STEP;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            boolean improved = false;
+            for (int w = 0; w < FEATURES; w++) {
+                if (!used[w]) continue;
+                for (int delta = step; delta >= -step; delta -= 2 * step) {
+                    weights[w] += delta;
+                    double error = loss(weights, k);
+                    if (error < best) {
+                        best = error;
+                        improved = true;
+                        break;
+                    }
+                    weights[w] -= delta;
+                }
+            }
+            System.out.printf("Pasada %d (paso %d): error %.6f, pesos %s%n",
+                    pass + 1, step, best, Arrays.toString(weights));
+            if (!improved) {
+                if (step == 1) break;
+                step /= 2;
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * @return Posiciones evaluadas desde que se creó el ajustador.
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Detiene los hilos del ajuste.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Tarea que suma el error de un rango de muestras, dividiéndolo mientras sea grande.
+     */
+    private final class LossTask extends RecursiveTask<Double> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] weights; // Pesos de la evaluación
+        private final double k; // Escala de la sigmoide
+        private final int from; // Primera muestra del rango
+        private final int to; // Muestra siguiente a la última del rango
+
+        LossTask(int[] weights, double k, int from, int to) {
+            this.weights = weights;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                LossTask left = new LossTask(weights, k, from, mid);
+                left.fork();
+                double right = new LossTask(weights, k, mid, to).compute();
+                return left.join() + right;
+            }
+            double sum = 0.0;
+            for (int i = from, f = from * FEATURES; i < to; i++, f += FEATURES) {
+                int score = 0;
+                for (int w = 0; w < FEATURES; w++) score += weights[w] * features[f + w];
+                double error = targets[i] - 1.0 / (1.0 + Math.exp(-k * score));
+                sum += error * error;
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Acción que aplica una función a cada índice de un rango, dividiéndolo mientras tenga
+     * más de {@code grain} índices.
+     */
+    private static final class RangeAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from; // Primer índice del rango
+        private final int to; // Índice siguiente al último del rango
+        private final int grain; // Índices por tarea a partir de los que se divide
+        private final IntConsumer body; // Función a aplicar a cada índice
+
+        RangeAction(int from, int to, int grain, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RangeAction(from, mid, grain, body), new RangeAction(mid, to, grain, body));
+                return;
+            }
+            for (int i = from; i < to; i++) body.accept(i);
+        }
+    }
+
+    /**
+     * Genera un corpus o ajusta los pesos desde la línea de comandos.
+     *
+     * @param args corpus fichero [partidas] [profundidad] [jugadas al azar] [hilos], o
+     *             tune corpus pesos [escala] [hilos].
+     * @throws IOException Si falla la lectura o la escritura de algún fichero.
+     */
+    public static void main(String[] args) throws IOException {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        if (args.length >= 2 && args[0].equals("corpus")) {
+            Path file = Paths.get(args[1]);
+            int games = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+            int depth = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+            int randomPlies = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+            int threads = args.length > 5 ? Integer.parseInt(args[5]) : cpus;
+            HeuristicaTuner tuner = new HeuristicaTuner(MatchRunner.DEFAULT_SIZE, threads);
+            long start = System.nanoTime();
+            tuner.generate(file, games, depth, randomPlies, System.nanoTime());
+            tuner.shutdown();
+            System.out.printf("Corpus escrito en %s en %.1f s%n", file, (System.nanoTime() - start) / 1e9);
+        } else if (args.length >= 3 && args[0].equals("tune")) {
+            Path corpus = Paths.get(args[1]);
+            Path output = Paths.get(args[2]);
+            int scale = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+            int threads = args.length > 4 ? Integer.parseInt(args[4]) : cpus;
+            HeuristicaTuner tuner = new HeuristicaTuner(MatchRunner.DEFAULT_SIZE, threads);
+            long start = System.nanoTime();
+            System.out.printf("%d muestras%n", tuner.load(corpus));
+
+            // Con una escala mayor los pasos de una unidad son proporcionalmente más finos
+            int[] initial = Heuristica.defaultWeights();
+            for (int w = 0; w < initial.length; w++) initial[w] *= scale;
+            double k = tuner.fitScale(initial);
+            System.out.printf("K = %.6f, error inicial %.6f%n", k, tuner.loss(initial, k));
+            int[] tuned = tuner.tune(initial, k);
+            double error = tuner.loss(tuned, k);
+            tuner.shutdown();
+
+            Heuristica.writeWeights(output, tuned, String.format("Texel: K = %.6f, error %.6f", k, error));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Pesos %s escritos en %s; %d evaluaciones en %.1f s (%.1f M/s)%n",
+                    Arrays.toString(tuned), output, tuner.getEvaluations(), seconds,
+                    tuner.getEvaluations() / seconds / 1e6);
+        } else {
+            System.out.println("Uso: HeuristicaTuner corpus fichero [partidas] [profundidad] [jugadas al azar] [hilos]");
+            System.out.println("     HeuristicaTuner tune corpus pesos [escala] [hilos]");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.Arrays;
+
+/**
+ * Clase IncrementalEvaluator que mantiene la puntuación de {@link Heuristica#scorePosition(Bitboard, int)}
+ * a medida que se colocan y se retiran fichas.
+ *
+ * Guarda el número de fichas de cada color en cada ventana y la puntuación total. Colocar
+ * una ficha solo actualiza las ventanas que pasan por su casilla y retirarla deshace el
+ * cambio exactamente, así que evaluar una hoja cuesta O(1).
+ */
+public class IncrementalEvaluator {
+
+    private final int size; // Tamaño del lado del tablero
+    private final int stride; // Número de valores posibles de fichas en una ventana (longitud + 1)
+    private final LineTable lines; // Ventanas del tablero y ventanas que pasan por cada casilla
+    private final int[] windowValue; // Puntuación de una ventana: windowValue[propias * stride + rivales]
+    private final int[] counts; // Fichas de cada color en cada ventana: counts[2 * ventana + lado]
+    private final int[] centreValue; // Puntuación de una ficha propia en cada columna
+
+    private int perspective; // Color desde cuyo punto de vista se puntúa
+    private int ownSide; // Índice del lado de la perspectiva
+    private int score; // Puntuación actual
+
+    /**
+     * Constructor de IncrementalEvaluator.
+     *
+     * @param heuristica Heurística cuya puntuación se mantiene.
+     * @param size Tamaño del tablero.
+     */
+    public IncrementalEvaluator(Heuristica heuristica, int size) {
+        int length = heuristica.WINDOW_LENGTH;
+        this.size = size;
+        this.stride = length + 1;
+
+        // Puntuación de cada combinación de fichas en una ventana
+        this.windowValue = new int[stride * stride];
+        for (int own = 0; own <= length; own++) {
+            for (int opp = 0; own + opp <= length; opp++) {
+                windowValue[own * stride + opp] = heuristica.evaluateWindow(own, opp, length - own - opp);
+            }
+        }
+
+        // Las ventanas vienen de la tabla precalculada de la heurística
+        this.lines = heuristica.getLineTable();
+        this.counts = new int[2 * lines.lineCount()];
+
+        this.centreValue = new int[size];
+        for (int col = 0; col < size; col++) {
+            centreValue[col] = heuristica.isCentreColumn(col) ? heuristica.CENTRE_VALUE : 0;
+        }
+    }
+
+    /**
+     * Recalcula el estado a partir de un tablero completo.
+     *
+     * @param board Tablero a evaluar.
+     * @param perspective Color desde cuyo punto de vista se puntúa.
+     */
+    public void reset(Bitboard board, int perspective) {
+        this.perspective = perspective;
+        this.ownSide = Bitboard.side(perspective);
+        Arrays.fill(counts, 0);
+        score = 0;
+        for (int w = 0; w < counts.length / 2; w++) {
+            score += value(w);
+        }
+        for (int c = 0; c < size; c++) {
+            for (int r = 0; r < board.height(c); r++) {
+                play(board.cell(r, c), board.get(r, c));
+            }
+        }
+    }
+
+    /**
+     * Actualiza el estado tras colocar una ficha.
+     *
+     * @param cell Casilla ocupada (véase {@link Bitboard#play(int, int)}).
+     * @param color Color de la ficha.
+     */
+    public void play(int cell, int color) {
+        int s = Bitboard.side(color);
+        for (int w : lines.linesThrough(cell)) {
+            score -= value(w);
+            ++counts[2 * w + s];
+            score += value(w);
+        }
+        if (color == perspective) score += centreValue[cell / size];
+    }
+
+    /**
+     * Deshace {@link #play(int, int)}.
+     *
+     * @param cell Casilla que se libera.
+     * @param color Color de la ficha retirada.
+     */
+    public void undo(int cell, int color) {
+        int s = Bitboard.side(color);
+        for (int w : lines.linesThrough(cell)) {
+            score -= value(w);
+            --counts[2 * w + s];
+            score += value(w);
+        }
+        if (color == perspective) score -= centreValue[cell / size];
+    }
+
+    /**
+     * Puntuación actual de una ventana desde el punto de vista de la perspectiva.
+     *
+     * @param w Índice de la ventana.
+     * @return Puntuación de la ventana.
+     */
+    private int value(int w) {
+        return windowValue[counts[2 * w + ownSide] * stride + counts[2 * w + 1 - ownSide]];
+    }
+
+    /**
+     * @return Puntuación del tablero desde el punto de vista de la perspectiva.
+     */
+    public int score() {
+        return score;
+    }
+}
@@ -5,6 +5,9 @@ import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -32,6 +35,12 @@ public class Juga2 extends javax.swing.JFrame {
     int otherColor;
     boolean autoMode = true;
     boolean estaPensant = false;
+    GameRecordWriter recorder; // Registro de las partidas, o null
+    int[] columns = new int[8 * 8]; // Columnas jugadas en la partida actual
+    long[] thinkNanos = new long[8 * 8]; // Tiempo de cada jugada de la partida actual
+    int moves; // Jugadas de la partida actual
+    int games; // Partidas terminadas
+    long turnStart; // Instante en que empezó el turno actual
 
     /**
      * Creates new form NewJFrame
@@ -52,6 +61,7 @@ public class Juga2 extends javax.swing.JFrame {
 
     private void init() {
         t = new Tauler(8);
+        moves = 0;
 
         currentPlayer = player1;
         otherPlayer = player2;
@@ -68,7 +78,16 @@ public class Juga2 extends javax.swing.JFrame {
     }
 
     /**
-     * @param args the command line arguments
+     * Guarda las partidas que se terminen en un registro (véase {@link GameRecordWriter}).
+     *
+     * @param recorder Registro de partidas, o null para no guardarlas.
+     */
+    public void setRecorder(GameRecordWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * @param args the command line arguments; opcionalmente, el fichero donde se añaden las partidas
      */
     public static void main(String args[]) {
         /* Set the Nimbus look and feel */
@@ -95,7 +114,10 @@ public class Juga2 extends javax.swing.JFrame {
         //</editor-fold>
 
         // Definiu al vostre gust els jugadors a enfrontar.
-        Jugador p1 = new MinMaxBot(8,8);
+        MinMaxBot bot = new MinMaxBot(8,8);
+        bot.addSearchListener(stats -> System.out.printf("## Jugadas exploradas: %d\n", stats.getNodes()));
+        bot.setPondering(true); // Sigue pensando mientras juega el rival
+        Jugador p1 = bot;
 
         Jugador p2 = new Profe(2,false);
         // Jugador p2 = new Aleatori();
@@ -103,6 +125,13 @@ public class Juga2 extends javax.swing.JFrame {
 
         boolean autoMode = true;
         final Juga2 j = new Juga2(p1, p2, autoMode);
+        if (args.length > 0) {
+            try {
+                j.setRecorder(new GameRecordWriter(Paths.get(args[0]), 8, true));
+            } catch (IOException ex) {
+                System.err.println("No se puede abrir el registro de partidas: " + ex.getMessage());
+            }
+        }
 
         /* Create and display the form */
         java.awt.EventQueue.invokeLater(new Runnable() {
@@ -115,6 +144,7 @@ public class Juga2 extends javax.swing.JFrame {
     }
 
     private void mostraTornActual() {
+        turnStart = System.nanoTime();
         jTextField2.setText("TOCA JUGAR " + currentPlayer.nom() + " " + ((currentColor == 1) ? "P1(RED)" : "P2(BLUE)"));
         if (autoMode && currentPlayer instanceof IAuto) {
             runAuto();
@@ -286,6 +316,9 @@ public class Juga2 extends javax.swing.JFrame {
 
         try {
             t.afegeix(colu, currentColor);
+            columns[moves] = colu;
+            thinkNanos[moves] = System.nanoTime() - turnStart;
+            ++moves;
             repaint();
             verificaSiHaAcabat(colu, currentColor);
         } 
@@ -332,6 +365,8 @@ public class Juga2 extends javax.swing.JFrame {
                 dTitle = "TAULES";
             }
 
+            guardaPartida(t.solucio(colu, color) ? (currentPlayer == player1 ? 0 : 1) : GameResult.DRAW);
+
             jTextField1.setText(text1);
             jTextField2.setText(text2);
             jTextField3.setText(text3);
@@ -343,6 +378,7 @@ public class Juga2 extends javax.swing.JFrame {
             if (n == JOptionPane.YES_OPTION) {
                 init();
             } else if (n == JOptionPane.NO_OPTION) {
+                tancaRegistre();
                 System.exit(0);
             }
         } else {
@@ -351,6 +387,38 @@ public class Juga2 extends javax.swing.JFrame {
         mostraTornActual();
     }
 
+    /**
+     * Añade la partida terminada al registro, si lo hay. P1 siempre empieza.
+     *
+     * @param winner Jugador ganador (0 para P1, 1 para P2), o {@link GameResult#DRAW}.
+     */
+    private void guardaPartida(int winner) {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.write(games++, 0, winner, false,
+                    Arrays.copyOf(columns, moves), Arrays.copyOf(thinkNanos, moves));
+            recorder.flush(); // La aplicación puede cerrarse sin avisar
+        } catch (IOException ex) {
+            System.err.println("No se puede guardar la partida: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Cierra el registro de partidas, si lo hay.
+     */
+    private void tancaRegistre() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.close();
+        } catch (IOException ex) {
+            System.err.println("No se puede cerrar el registro de partidas: " + ex.getMessage());
+        }
+    }
+
     class Mover extends SwingWorker<Integer, Object> {
 
         int color;
@@ -0,0 +1,63 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.Arrays;
+
+/**
+ * Ordenación de jugadas con killer moves y tabla de historia.
+ *
+ * El orden es: jugada de la tabla o de la variante principal, las dos killer moves del
+ * nivel (jugadas que podaron en nodos hermanos), la puntuación de historia de la columna
+ * y, como desempate, la ordenación del centro hacia los extremos.
+ */
+public class KillerHistoryMoveOrdering extends CenterMoveOrdering {
+
+    private static final int KILLER_1 = Integer.MAX_VALUE - 2; // Prioridad de la primera killer move
+    private static final int KILLER_2 = Integer.MAX_VALUE - 3; // Prioridad de la segunda killer move
+    private static final int HISTORY_LIMIT = 1 << 20; // Al superarlo la historia se reduce a la mitad
+
+    private final int[][] killers; // Dos killer moves por nivel
+    private final int[][] history; // Puntuación de historia por color y columna
+
+    /**
+     * Constructor de KillerHistoryMoveOrdering.
+     *
+     * @param size Tamaño del tablero.
+     */
+    public KillerHistoryMoveOrdering(int size) {
+        super(size);
+        this.killers = new int[size * size + 1][2];
+        this.history = new int[2][size];
+        for (int[] k : killers) Arrays.fill(k, -1);
+    }
+
+    @Override
+    public void newSearch() {
+        for (int[] k : killers) Arrays.fill(k, -1);
+        // La historia de movimientos anteriores sigue siendo útil, pero pesa menos
+        for (int[] h : history) {
+            for (int col = 0; col < size; col++) h[col] >>= 1;
+        }
+    }
+
+    @Override
+    protected int key(int col, int ply, int color, int hashMove) {
+        if (col == hashMove) return Integer.MAX_VALUE;
+        if (col == killers[ply][0]) return KILLER_1;
+        if (col == killers[ply][1]) return KILLER_2;
+        return history[Bitboard.side(color)][col] * 4 * size + centerRank[col];
+    }
+
+    @Override
+    public void cutoff(int col, int ply, int color, int depth) {
+        int[] k = killers[ply];
+        if (k[0] != col) {
+            k[1] = k[0];
+            k[0] = col;
+        }
+        int[] h = history[Bitboard.side(color)];
+        h[col] += depth * depth;
+        if (h[col] > HISTORY_LIMIT) {
+            for (int c = 0; c < size; c++) h[c] >>= 1;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Clase LazySmpSearch que busca la misma raíz con varios hilos compartiendo una única
+ * {@link TranspositionTable} (Lazy SMP).
+ *
+ * El hilo que llama hace la búsqueda principal y su resultado es el que se devuelve. Los
+ * hilos auxiliares profundizan a la vez sobre copias del tablero, empezando unos un nivel
+ * más arriba que otros para no ir sincronizados, y lo único que aportan son las entradas que
+ * escriben en la tabla: cortes y mejores jugadas que la búsqueda principal encuentra ya
+ * calculados. Cuando la búsqueda principal termina, los auxiliares se detienen.
+ *
+ * A diferencia de {@link ParallelSearch}, el resultado no tiene por qué coincidir con el de
+ * una búsqueda secuencial a la misma profundidad, ya que depende del orden en que los hilos
+ * escriben en la tabla.
+ */
+public class LazySmpSearch {
+
+    private final Search main; // Búsqueda principal, cuyo resultado se devuelve
+    private final Search[] helpers; // Búsquedas auxiliares, una por hilo del pool
+    private final ForkJoinPool pool; // Hilos de las búsquedas auxiliares, o null si no hay
+    private long nodes; // Nodos explorados en la última búsqueda, sumando todos los hilos
+
+    /**
+     * Constructor de LazySmpSearch.
+     *
+     * @param heuristica Heurística usada en las hojas.
+     * @param size Tamaño del tablero.
+     * @param threads Número total de hilos de búsqueda, contando el principal.
+     * @param tt Tabla de transposiciones compartida por todos los hilos.
+     */
+    public LazySmpSearch(Heuristica heuristica, int size, int threads, TranspositionTable tt) {
+        if (tt == null) {
+            throw new IllegalArgumentException("Lazy SMP necesita una tabla de transposiciones");
+        }
+        this.main = new Search(heuristica, size, tt);
+        this.helpers = new Search[Math.max(0, threads - 1)];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Search(heuristica, size, tt);
+        }
+        this.pool = helpers.length > 0 ? new ForkJoinPool(helpers.length) : null;
+    }
+
+    /**
+     * Busca la mejor jugada a una profundidad fija.
+     *
+     * @param position Tablero actual; no se modifica.
+     * @param color Color del jugador que mueve.
+     * @param depth Profundidad de la búsqueda.
+     * @return Columna óptima.
+     */
+    public int search(Bitboard position, int color, int depth) {
+        return run(position, color, depth, 0L);
+    }
+
+    /**
+     * Busca la mejor jugada profundizando iterativamente hasta agotar el tiempo.
+     *
+     * @param position Tablero actual; no se modifica.
+     * @param color Color del jugador que mueve.
+     * @param maxDepth Profundidad máxima a alcanzar.
+     * @param deadline Instante, según {@link System#nanoTime()}, en que debe terminar la búsqueda.
+     * @return Mejor columna de la última iteración completada por la búsqueda principal.
+     */
+    public int search(Bitboard position, int color, int maxDepth, long deadline) {
+        return run(position, color, maxDepth, deadline);
+    }
+
+    /**
+     * Lanza las búsquedas auxiliares, hace la principal y espera a que los auxiliares paren.
+     *
+     * @param position Tablero actual.
+     * @param color Color del jugador que mueve.
+     * @param maxDepth Profundidad máxima.
+     * @param deadline Instante en que debe terminar la búsqueda, o 0 sin límite.
+     * @return Mejor columna de la búsqueda principal.
+     */
+    private int run(Bitboard position, final int color, final int maxDepth, long deadline) {
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            final Search helper = helpers[i];
+            final Bitboard board = new Bitboard(position);
+            final int firstDepth = 1 + (i & 1); // Los hilos impares empiezan un nivel más abajo
+            helper.clearStop();
+            tasks[i] = pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    helper.searchHelper(board, color, firstDepth, maxDepth);
+                }
+            });
+        }
+
+        Bitboard board = new Bitboard(position);
+        int best = deadline != 0L ? main.search(board, color, maxDepth, deadline)
+                                  : main.search(board, color, maxDepth);
+
+        nodes = main.getNodes();
+        for (Search helper : helpers) helper.stop();
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i].join();
+            nodes += helpers[i].getNodes();
+        }
+        return best;
+    }
+
+    /**
+     * Establece la caché persistente de todas las búsquedas (véase {@link Search#setAnalysisCache}).
+     *
+     * @param cache Caché a consultar, o null para no usar ninguna.
+     */
+    public void setAnalysisCache(AnalysisCache cache) {
+        main.setAnalysisCache(cache);
+        for (Search helper : helpers) helper.setAnalysisCache(cache);
+    }
+
+    /**
+     * Detiene los hilos auxiliares. La instancia no se puede usar después.
+     */
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    /**
+     * @return Búsqueda principal, para consultar la puntuación, la profundidad o las estadísticas.
+     */
+    public Search getMainSearch() {
+        return main;
+    }
+
+    /**
+     * @return Métricas de la búsqueda principal, con los nodos de todos los hilos.
+     */
+    public SearchStats getStats() {
+        return main.getStats().withNodes(nodes);
+    }
+
+    /**
+     * @return Número de jugadas exploradas en la última búsqueda, sumando todos los hilos.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
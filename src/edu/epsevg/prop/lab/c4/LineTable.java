@@ -0,0 +1,200 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.ArrayList;
+
+/**
+ * Clase LineTable con todas las líneas ganadoras de un tablero precalculadas.
+ *
+ * Para un tamaño de tablero y una longitud de línea dados enumera, una sola vez, todas las
+ * líneas horizontales, verticales y diagonales. Cada línea se guarda como lista de casillas
+ * y como máscara de bits compatible con {@link Bitboard}, y para cada casilla se guardan
+ * los índices de las líneas que pasan por ella. La evaluación, la detección de victorias y
+ * la de amenazas recorren esta tabla en lugar de volver a calcular las coordenadas.
+ *
+ * Las casillas se numeran como en {@link Bitboard}: {@code columna * lado + fila}. La tabla
+ * es inmutable y se puede compartir entre hilos.
+ */
+public final class LineTable {
+
+    private final int size; // Tamaño del lado del tablero
+    private final int connect; // Fichas en línea necesarias para ganar
+    private final int[][] lineCells; // Casillas de cada línea
+    private final int[][] cellLines; // Líneas que pasan por cada casilla
+    private final long[] lowMask; // Bits 0..63 de cada línea (null si el tablero no cabe en un Bitboard)
+    private final long[] highMask; // Bits 64..127 de cada línea
+
+    /**
+     * Constructor de LineTable.
+     *
+     * @param size Tamaño del lado del tablero.
+     * @param connect Fichas en línea necesarias para ganar.
+     */
+    public LineTable(int size, int connect) {
+        if (connect < 2) {
+            throw new IllegalArgumentException("Longitud de línea no válida: " + connect);
+        }
+        this.size = size;
+        this.connect = connect;
+
+        // Enumera las líneas horizontales, verticales y diagonales (\) y (/)
+        ArrayList<int[]> lines = new ArrayList<>();
+        int[][] directions = { {0, 1}, {1, 0}, {1, 1}, {-1, 1} };
+        for (int[] d : directions) {
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    int endRow = r + (connect - 1) * d[0];
+                    int endCol = c + (connect - 1) * d[1];
+                    if (endRow < 0 || endRow >= size || endCol >= size) continue;
+                    int[] cells = new int[connect];
+                    for (int i = 0; i < connect; i++) {
+                        cells[i] = (c + i * d[1]) * size + r + i * d[0];
+                    }
+                    lines.add(cells);
+                }
+            }
+        }
+        this.lineCells = lines.toArray(new int[lines.size()][]);
+
+        // Asocia a cada casilla las líneas que pasan por ella
+        int[] perCell = new int[size * size];
+        for (int[] cells : lineCells) {
+            for (int cell : cells) perCell[cell]++;
+        }
+        this.cellLines = new int[size * size][];
+        for (int cell = 0; cell < perCell.length; cell++) {
+            cellLines[cell] = new int[perCell[cell]];
+        }
+        for (int line = lineCells.length - 1; line >= 0; line--) {
+            for (int cell : lineCells[line]) {
+                cellLines[cell][--perCell[cell]] = line;
+            }
+        }
+
+        // Máscaras de bits, solo si el tablero se puede representar con un Bitboard
+        if (size * size <= Bitboard.MAX_CELLS) {
+            this.lowMask = new long[lineCells.length];
+            this.highMask = new long[lineCells.length];
+            for (int line = 0; line < lineCells.length; line++) {
+                for (int cell : lineCells[line]) {
+                    if (cell < 64) lowMask[line] |= 1L << cell;
+                    else highMask[line] |= 1L << (cell - 64);
+                }
+            }
+        } else {
+            this.lowMask = null;
+            this.highMask = null;
+        }
+    }
+
+    /**
+     * @return Tamaño del lado del tablero.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Fichas en línea necesarias para ganar.
+     */
+    public int connect() {
+        return connect;
+    }
+
+    /**
+     * @return Número de líneas del tablero.
+     */
+    public int lineCount() {
+        return lineCells.length;
+    }
+
+    /**
+     * @param line Índice de la línea.
+     * @return Casillas de la línea. El array es interno y no debe modificarse.
+     */
+    public int[] cells(int line) {
+        return lineCells[line];
+    }
+
+    /**
+     * @param cell Índice de la casilla.
+     * @return Índices de las líneas que pasan por la casilla. El array es interno y no debe modificarse.
+     */
+    public int[] linesThrough(int cell) {
+        return cellLines[cell];
+    }
+
+    /**
+     * @param line Índice de la línea.
+     * @return Bits 0..63 de la máscara de la línea.
+     */
+    public long lowMask(int line) {
+        return lowMask[line];
+    }
+
+    /**
+     * @param line Índice de la línea.
+     * @return Bits 64..127 de la máscara de la línea.
+     */
+    public long highMask(int line) {
+        return highMask[line];
+    }
+
+    /**
+     * Comprueba si unas fichas contienen alguna línea completa.
+     *
+     * @param low Bits 0..63 de las fichas.
+     * @param high Bits 64..127 de las fichas.
+     * @return true si alguna línea está completa.
+     */
+    public boolean hasLine(long low, long high) {
+        for (int line = 0; line < lowMask.length; line++) {
+            if ((low & lowMask[line]) == lowMask[line] && (high & highMask[line]) == highMask[line]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Comprueba si alguna de las líneas que pasan por una casilla está completa. Como solo
+     * la última ficha colocada puede formar una línea nueva, basta con revisar su casilla.
+     *
+     * @param low Bits 0..63 de las fichas.
+     * @param high Bits 64..127 de las fichas.
+     * @param cell Casilla de la última ficha colocada.
+     * @return true si alguna línea que pasa por la casilla está completa.
+     */
+    public boolean completesLine(long low, long high, int cell) {
+        for (int line : cellLines[cell]) {
+            if ((low & lowMask[line]) == lowMask[line] && (high & highMask[line]) == highMask[line]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calcula las casillas de amenaza: casillas vacías que completarían una línea de
+     * las fichas propias si se ocupasen.
+     *
+     * @param ownLow Bits 0..63 de las fichas propias.
+     * @param ownHigh Bits 64..127 de las fichas propias.
+     * @param oppLow Bits 0..63 de las fichas del rival.
+     * @param oppHigh Bits 64..127 de las fichas del rival.
+     * @param out Array de al menos dos posiciones donde se escriben los bits 0..63 y 64..127 de las amenazas.
+     */
+    public void threats(long ownLow, long ownHigh, long oppLow, long oppHigh, long[] out) {
+        long low = 0L, high = 0L;
+        for (int line = 0; line < lowMask.length; line++) {
+            long ml = lowMask[line], mh = highMask[line];
+            if ((oppLow & ml) != 0 || (oppHigh & mh) != 0) continue;
+            long missingLow = ml & ~ownLow, missingHigh = mh & ~ownHigh;
+            if (Long.bitCount(missingLow) + Long.bitCount(missingHigh) == 1) {
+                low |= missingLow;
+                high |= missingHigh;
+            }
+        }
+        out[0] = low;
+        out[1] = high;
+    }
+}
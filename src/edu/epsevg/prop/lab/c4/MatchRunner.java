@@ -0,0 +1,234 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Clase MatchRunner que enfrenta a dos jugadores durante N partidas sin interfaz gráfica.
+ *
+ * Los colores se alternan: en las partidas pares empieza el primer jugador y en las impares
+ * el segundo. Las partidas se reparten entre los hilos de un {@link ExecutorService} y cada
+ * resultado se entrega en cuanto termina su partida, sin esperar al resto.
+ *
+ * Cada jugador recibe una copia del tablero, así que no puede alterar la partida. Una jugada
+ * ilegal hace perder la partida. Una excepción al calcularla también, pero la partida se
+ * marca como error ({@link GameResult#getError()}) y la traza se escribe en la salida de
+ * errores. Si los jugadores no se pueden usar desde varios hilos a la vez, se deben dar
+ * fábricas que creen uno por partida.
+ */
+public class MatchRunner {
+
+    public static final int DEFAULT_SIZE = 8; // Tamaño del tablero de Juga2
+
+    private final Supplier<? extends Jugador> first; // Fábrica del primer jugador
+    private final Supplier<? extends Jugador> second; // Fábrica del segundo jugador
+    private final int size; // Tamaño del lado del tablero
+
+    /**
+     * Constructor de MatchRunner con dos jugadores que se comparten entre todas las partidas.
+     * Ambos deben poder usarse desde varios hilos si las partidas se juegan en paralelo.
+     *
+     * @param first Primer jugador.
+     * @param second Segundo jugador.
+     * @param size Tamaño del tablero.
+     */
+    public MatchRunner(final Jugador first, final Jugador second, int size) {
+        this(() -> first, () -> second, size);
+    }
+
+    /**
+     * Constructor de MatchRunner con fábricas de jugadores, que se llaman una vez por partida.
+     *
+     * @param first Fábrica del primer jugador.
+     * @param second Fábrica del segundo jugador.
+     * @param size Tamaño del tablero.
+     */
+    public MatchRunner(Supplier<? extends Jugador> first, Supplier<? extends Jugador> second, int size) {
+        this.first = first;
+        this.second = second;
+        this.size = size;
+    }
+
+    /**
+     * Juega las partidas en el ejecutor indicado y entrega cada resultado al terminar.
+     * El listener se llama desde el hilo que invoca este método, aunque no en el orden de las partidas.
+     *
+     * @param games Número de partidas.
+     * @param executor Ejecutor donde se juegan las partidas; no se cierra al terminar.
+     * @param listener Receptor de los resultados, o null.
+     * @return Resultados de todas las partidas, ordenados por número de partida.
+     * @throws InterruptedException Si se interrumpe el hilo mientras espera las partidas.
+     */
+    public List<GameResult> run(int games, ExecutorService executor, Consumer<? super GameResult> listener)
+            throws InterruptedException {
+        CompletionService<GameResult> done = new ExecutorCompletionService<>(executor);
+        for (int g = 0; g < games; g++) {
+            final int game = g;
+            done.submit(() -> play(game));
+        }
+
+        GameResult[] results = new GameResult[games];
+        for (int i = 0; i < games; i++) {
+            GameResult result;
+            try {
+                result = done.take().get();
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Error al jugar una partida", ex.getCause());
+            }
+            results[result.getGame()] = result;
+            if (listener != null) listener.accept(result);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Juega las partidas con un número fijo de hilos.
+     *
+     * @param games Número de partidas.
+     * @param threads Número de partidas simultáneas.
+     * @param listener Receptor de los resultados, o null.
+     * @return Resultados de todas las partidas, ordenados por número de partida.
+     * @throws InterruptedException Si se interrumpe el hilo mientras espera las partidas.
+     */
+    public List<GameResult> run(int games, int threads, Consumer<? super GameResult> listener)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            return run(games, executor, listener);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Juega una partida completa en el hilo actual.
+     *
+     * @param game Número de la partida; decide quién empieza.
+     * @return Resultado de la partida.
+     */
+    public GameResult play(int game) {
+        int firstPlayer = game % 2;
+        Jugador[] players = { first.get(), second.get() };
+
+        Tauler t = new Tauler(size);
+        int[] columns = new int[size * size];
+        long[] thinkNanos = new long[size * size];
+        int moves = 0;
+        int color = 1;
+        int winner = GameResult.DRAW;
+        boolean forfeit = false;
+        Throwable error = null;
+
+        while (t.espotmoure()) {
+            int player = color == 1 ? firstPlayer : 1 - firstPlayer;
+            long start = System.nanoTime();
+            int col;
+            try {
+                col = players[player].moviment(new Tauler(t), color);
+            } catch (RuntimeException ex) {
+                // Un fallo del jugador es un error a investigar, no una jugada ilegal más
+                System.err.println("Partida " + game + ": error de J" + (player + 1)
+                        + " (" + players[player].nom() + ")");
+                ex.printStackTrace();
+                winner = 1 - player;
+                error = ex;
+                break;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (col < 0 || col >= size || !t.movpossible(col)) {
+                winner = 1 - player;
+                forfeit = true;
+                break;
+            }
+            t.afegeix(col, color);
+            columns[moves] = col;
+            thinkNanos[moves] = elapsed;
+            ++moves;
+            if (t.solucio(col, color)) {
+                winner = player;
+                break;
+            }
+            color = -color;
+        }
+        return new GameResult(game, firstPlayer, winner, forfeit, error,
+                Arrays.copyOf(columns, moves), Arrays.copyOf(thinkNanos, moves));
+    }
+
+    /**
+     * Enfrenta a MinMaxBot contra Profe sin interfaz gráfica y muestra cada resultado.
+     *
+     * Uso: {@code MatchRunner [partidas] [hilos] [profundidad] [caché] [registro]}. Si se
+     * indica un fichero de caché de análisis ({@code -} para ninguno), MinMaxBot la consulta
+     * (si ya existe) y al terminar le añade los resultados de su tabla de transposiciones.
+     * Si se indica un fichero de registro, las partidas se añaden a él con
+     * {@link GameRecordWriter}.
+     *
+     * @param args Argumentos de la línea de comandos.
+     * @throws InterruptedException Si se interrumpe la ejecución.
+     * @throws IOException Si no se puede leer o escribir la caché o el registro.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        Path cacheFile = args.length > 3 && !"-".equals(args[3]) ? Paths.get(args[3]) : null;
+        Path recordFile = args.length > 4 ? Paths.get(args[4]) : null;
+
+        MinMaxBot bot = new MinMaxBot(DEFAULT_SIZE, depth); // Se comparte entre todas las partidas
+        Heuristica heuristica = bot.getHeuristica(); // La caché depende de sus pesos
+        if (cacheFile != null && Files.exists(cacheFile)) {
+            bot.setAnalysisCache(AnalysisCache.open(cacheFile, heuristica));
+        }
+        MatchRunner runner = new MatchRunner(() -> bot, () -> new Profe(2, false), DEFAULT_SIZE);
+
+        GameRecordWriter recorder = recordFile != null ? new GameRecordWriter(recordFile, DEFAULT_SIZE, true) : null;
+        Consumer<GameResult> listener = result -> {
+            System.out.println(result);
+            if (recorder != null) {
+                try {
+                    recorder.write(result);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        };
+
+        long start = System.nanoTime();
+        List<GameResult> finished;
+        try {
+            finished = runner.run(games, threads, listener);
+        } finally {
+            if (recorder != null) recorder.close();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int[] wins = new int[2];
+        int draws = 0, errors = 0;
+        for (GameResult result : finished) {
+            if (result.getWinner() == GameResult.DRAW) draws++;
+            else wins[result.getWinner()]++;
+            if (result.isError()) errors++;
+        }
+        System.out.printf("%s %d - %d %s, %d tablas, %d errores, %d partidas en %.1f s%n",
+                bot.nom(), wins[0], wins[1], "Profe", draws, errors, games, elapsed / 1e9);
+        if (cacheFile != null) {
+            int written = AnalysisCache.merge(cacheFile, heuristica, AnalysisCache.DEFAULT_LOG2_SLOTS,
+                    bot.getTranspositionTable());
+            System.out.printf("%d entradas añadidas a %s%n", written, cacheFile);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Clase MctsBot que implementa un jugador automático basado en la búsqueda de Monte Carlo
+ * en árbol (véase {@link MonteCarloSearch}), sin heurística de evaluación.
+ *
+ * Cada movimiento dispone de un tiempo o de un número de partidas simuladas. Con varios
+ * hilos se usa paralelismo de raíz: cada hilo construye su propio árbol desde la misma
+ * posición, con su propio generador aleatorio, y al terminar se suman las visitas de las
+ * columnas de la raíz de todos los árboles. Se juega la columna más visitada y, a igualdad,
+ * la más central.
+ *
+ * Implementa las interfaces IAuto y Jugador. Una misma instancia se puede usar desde varios
+ * hilos a la vez; los movimientos con varios hilos ({@link #setThreads(int)}) se atienden
+ * de uno en uno.
+ */
+public class MctsBot implements IAuto, Jugador {
+
+    public static final long DEFAULT_TIME_LIMIT = 1000; // Milisegundos por movimiento por defecto
+
+    private final Heuristica heuristica; // Líneas del tablero para el análisis de amenazas
+    private final int size; // Tamaño del lado del tablero
+    private final int[] centerRank; // Desempate entre columnas igual de visitadas
+    private final ThreadLocal<MonteCarloSearch> searches; // Árbol de cada hilo que llama a moviment
+    private volatile long timeLimit; // Tiempo máximo por movimiento en milisegundos (0 = por partidas)
+    private volatile long playouts; // Partidas simuladas por movimiento (0 = por tiempo)
+    private volatile double exploration = MonteCarloSearch.DEFAULT_EXPLORATION; // Constante de UCT
+    private final Object threadsLock = new Object(); // Serializa los movimientos multihilo y los cambios de hilos
+    private MonteCarloSearch[] helpers = new MonteCarloSearch[0]; // Árboles de los hilos auxiliares (threadsLock)
+    private volatile ForkJoinPool pool; // Hilos auxiliares, o null con un solo hilo (se escribe con threadsLock)
+    private volatile long iterations; // Partidas simuladas en el último movimiento, sumando los hilos
+
+    /**
+     * Constructor de MctsBot con límite de tiempo.
+     *
+     * @param size Tamaño del tablero.
+     * @param millis Tiempo por movimiento en milisegundos.
+     * @throws IllegalArgumentException Si el tablero tiene más de {@link Bitboard#MAX_CELLS} casillas.
+     */
+    public MctsBot(int size, long millis) {
+        if (size < 1 || size * size > Bitboard.MAX_CELLS) {
+            throw new IllegalArgumentException("MctsBot no soporta tableros de " + size + "x" + size);
+        }
+        this.size = size;
+        this.heuristica = new Heuristica(size);
+        this.centerRank = CenterMoveOrdering.centerRanks(size);
+        this.timeLimit = millis;
+        this.searches = new ThreadLocal<MonteCarloSearch>() {
+            @Override
+            protected MonteCarloSearch initialValue() {
+                return newSearch();
+            }
+        };
+    }
+
+    /**
+     * @return Nuevo árbol con una semilla aleatoria distinta.
+     */
+    private MonteCarloSearch newSearch() {
+        return new MonteCarloSearch(heuristica, size, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Establece el tiempo por movimiento.
+     *
+     * @param millis Tiempo máximo por movimiento en milisegundos, o 0 si se limita por partidas.
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimit = millis;
+    }
+
+    /**
+     * Limita cada movimiento a un número de partidas simuladas, repartidas entre los hilos.
+     * Si también hay límite de tiempo, se para con el primero que se alcance.
+     *
+     * @param playouts Partidas por movimiento, o 0 para limitar solo por tiempo.
+     */
+    public void setPlayouts(long playouts) {
+        this.playouts = playouts;
+    }
+
+    /**
+     * @param exploration Constante de exploración de UCT; más alta explora más columnas.
+     */
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+    /**
+     * Establece el número de hilos. Con más de uno, cada hilo construye su propio árbol
+     * (paralelismo de raíz) y se combinan las visitas de la raíz.
+     *
+     * @param threads Número de hilos, contando el que llama a moviment.
+     */
+    public void setThreads(int threads) {
+        synchronized (threadsLock) {
+            if (pool != null) pool.shutdown();
+            MonteCarloSearch[] trees = new MonteCarloSearch[Math.max(0, threads - 1)];
+            for (int i = 0; i < trees.length; i++) trees[i] = newSearch();
+            helpers = trees;
+            pool = trees.length > 0 ? new ForkJoinPool(trees.length) : null;
+        }
+    }
+
+    /**
+     * @return Partidas simuladas en el último movimiento, sumando todos los hilos.
+     */
+    public long getPlayouts() {
+        return iterations;
+    }
+
+    /**
+     * Calcula el movimiento con la búsqueda de Monte Carlo.
+     *
+     * @param t Tablero actual.
+     * @param color Color del jugador actual.
+     * @return Columna más visitada.
+     */
+    @Override
+    public int moviment(Tauler t, int color) {
+        Bitboard board = Bitboard.fromTauler(t);
+        long millis = timeLimit;
+        if (millis <= 0 && playouts <= 0) millis = DEFAULT_TIME_LIMIT; // Sin ningún límite no pararía
+        long deadline = millis > 0 ? System.nanoTime() + millis * 1000000L : 0L;
+        long[] visits = new long[size];
+        double[] reward = new double[size];
+
+        MonteCarloSearch main = searches.get();
+        main.setExploration(exploration);
+        boolean searched = false;
+        if (pool != null) {
+            synchronized (threadsLock) {
+                // Se vuelve a comprobar con el cerrojo: setThreads cambia los hilos con él
+                if (pool != null) {
+                    iterations = searchParallel(main, board, color, deadline, visits, reward);
+                    searched = true;
+                }
+            }
+        }
+        if (!searched) {
+            main.search(board, color, playouts, deadline);
+            main.addRootStats(visits, reward);
+            iterations = main.getIterations();
+        }
+        return mostVisited(board, visits);
+    }
+
+    /**
+     * Construye un árbol por hilo sobre copias del tablero y suma las visitas de la raíz.
+     * Se llama con threadsLock.
+     *
+     * @param main Árbol del hilo que llama.
+     * @param board Tablero actual.
+     * @param color Color del jugador que mueve.
+     * @param deadline Instante en que deben terminar, o 0 sin límite de tiempo.
+     * @param visits Visitas de cada columna (salida).
+     * @param reward Resultados acumulados de cada columna (salida).
+     * @return Partidas simuladas por todos los hilos.
+     */
+    private long searchParallel(MonteCarloSearch main, Bitboard board, final int color, final long deadline,
+                                long[] visits, double[] reward) {
+        final MonteCarloSearch[] trees = helpers;
+        final long budget = playouts > 0 ? Math.max(1, playouts / (trees.length + 1)) : 0;
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[trees.length];
+        for (int i = 0; i < trees.length; i++) {
+            final MonteCarloSearch tree = trees[i];
+            final Bitboard copy = new Bitboard(board);
+            tree.setExploration(exploration);
+            tasks[i] = pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    tree.search(copy, color, budget, deadline);
+                }
+            });
+        }
+
+        main.search(board, color, budget, deadline);
+        main.addRootStats(visits, reward);
+        long total = main.getIterations();
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i].join();
+            trees[i].addRootStats(visits, reward);
+            total += trees[i].getIterations();
+        }
+        return total;
+    }
+
+    /**
+     * @param board Tablero actual.
+     * @param visits Visitas de cada columna.
+     * @return Columna con más visitas y, a igualdad, la más central; si no hay ninguna
+     *         visitada, la primera jugable.
+     */
+    private int mostVisited(Bitboard board, long[] visits) {
+        int best = -1;
+        for (int col = 0; col < size; col++) {
+            if (!board.canPlay(col)) continue;
+            if (best < 0 || visits[col] > visits[best]
+                    || (visits[col] == visits[best] && centerRank[col] > centerRank[best])) {
+                best = col;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Devuelve el nombre del jugador.
+     *
+     * @return Nombre del jugador ("MctsBot").
+     */
+    @Override
+    public String nom() {
+        return "MctsBot";
+    }
+
+    /**
+     * Enfrenta a MctsBot contra Profe o contra MinMaxBot sin interfaz gráfica.
+     *
+     * Uso: {@code MctsBot [partidas] [milisegundos] [rival] [hilos]}, donde el rival es
+     * {@code profe} o la profundidad de MinMaxBot y los hilos son los de cada movimiento
+     * de MctsBot (las partidas se juegan de una en una para no repartir la CPU).
+     *
+     * @param args Argumentos de la línea de comandos.
+     * @throws InterruptedException Si se interrumpe la ejecución.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_TIME_LIMIT;
+        String rival = args.length > 2 ? args[2] : "profe";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        MctsBot bot = new MctsBot(MatchRunner.DEFAULT_SIZE, millis);
+        bot.setThreads(threads);
+        Supplier<Jugador> opponent = "profe".equalsIgnoreCase(rival)
+                ? () -> new Profe(2, false)
+                : () -> new MinMaxBot(MatchRunner.DEFAULT_SIZE, Integer.parseInt(rival));
+        MatchRunner runner = new MatchRunner(() -> bot, opponent, MatchRunner.DEFAULT_SIZE);
+
+        long start = System.nanoTime();
+        List<GameResult> finished = runner.run(games, 1, System.out::println);
+        long elapsed = System.nanoTime() - start;
+
+        int[] wins = new int[2];
+        int draws = 0;
+        for (GameResult result : finished) {
+            if (result.getWinner() == GameResult.DRAW) draws++;
+            else wins[result.getWinner()]++;
+        }
+        System.out.printf("%s %d - %d %s, %d tablas, %d partidas en %.1f s%n",
+                bot.nom(), wins[0], wins[1], opponent.get().nom(), draws, games, elapsed / 1e9);
+    }
+}
@@ -4,20 +4,73 @@
  */
 package edu.epsevg.prop.lab.c4;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Clase MinMaxBot que implementa un jugador automático utilizando el algoritmo Minimax 
  * con poda alfa-beta y una heurística personalizada para evaluar las posiciones en el tablero.
  * 
  * Implementa las interfaces IAuto y Jugador.
+ *
+ * Una misma instancia se puede usar desde varios hilos a la vez (por ejemplo, en muchas
+ * partidas simultáneas): cada hilo busca con su propia instancia de {@link Search} y todas
+ * comparten la heurística, que es inmutable, y la tabla de transposiciones, que no usa
+ * bloqueos. Las búsquedas multihilo ({@link #setThreads(int)}, {@link #setLazySmp(int)})
+ * atienden un movimiento cada vez.
+ *
+ * Los tableros de más de {@link Bitboard#MAX_CELLS} casillas no caben en un {@link Bitboard}:
+ * en ellos se juega con el Minimax original sobre una matriz, sin tabla ni hilos.
+ *
+ * Al construirse carga los pesos de la heurística del fichero indicado en la propiedad
+ * del sistema {@value #WEIGHTS_PROPERTY} o, si no se indica, de {@value #DEFAULT_WEIGHTS_FILE}
+ * en el directorio de trabajo si existe (véase {@link HeuristicaTuner}).
+ *
+ * Con {@link #setPondering(boolean)} el bot sigue pensando durante el turno del rival. El
+ * pensamiento en segundo plano es uno por bot, así que solo tiene sentido cuando la
+ * instancia juega una única partida.
  */
 public class MinMaxBot implements IAuto, Jugador {
 
-    private Heuristica heuristica; // Instancia de la clase Heuristica para evaluar posiciones en el tablero
-    private int maxDepth; // Profundidad máxima de la búsqueda Minimax
-    private int COLUMN_SIZE;  // Tamaño de la columna de la tabla
-    private int jugadas;
+    public static final int DEFAULT_TT_BITS = 20; // 2^20 entradas (16 MB) en la tabla por defecto
+    public static final int DEFAULT_ENDGAME_THRESHOLD = 20; // Casillas libres a partir de las que se resuelve el final
+    public static final String WEIGHTS_PROPERTY = "c4.weights"; // Propiedad del sistema con el fichero de pesos
+    public static final String DEFAULT_WEIGHTS_FILE = "weights.properties"; // Fichero de pesos por defecto
+    private static final int PREDICT_DEPTH = 6; // Profundidad para adivinar la respuesta si no hay variante principal
+
+    private final Heuristica heuristica; // Instancia de la clase Heuristica para evaluar posiciones en el tablero
+    private volatile int maxDepth; // Profundidad máxima de la búsqueda Minimax
+    private final int COLUMN_SIZE;  // Tamaño de la columna de la tabla
+    private final boolean legacy; // El tablero no cabe en un Bitboard y se juega con el Minimax original
+    private volatile long timeLimit; // Tiempo máximo por movimiento en milisegundos (0 = profundidad fija)
+    private final TranspositionTable tt; // Tabla de transposiciones, se conserva entre movimientos
+    private volatile ThreadLocal<Search> searches; // Búsqueda de cada hilo, con sus buffers reservados una única vez
+    private final ThreadLocal<EndgameSolver> solvers; // Resolvedor de finales de cada hilo
+    private volatile int endgameThreshold = DEFAULT_ENDGAME_THRESHOLD; // Casillas libres para resolver el final
+    private volatile ParallelSearch parallel; // Búsqueda con la raíz repartida entre varios hilos, o null
+    private volatile LazySmpSearch lazySmp; // Búsqueda Lazy SMP sobre la tabla compartida, o null
+    private volatile OpeningBook book; // Libro de aperturas, o null
+    private volatile AnalysisCache cache; // Caché persistente de análisis, o null
+    private final Object threadsLock = new Object(); // Serializa los movimientos de las búsquedas multihilo
+    private final List<SearchListener> listeners = new CopyOnWriteArrayList<>(); // Receptores de las métricas
+    private final Object ponderLock = new Object(); // Protege el estado del pensamiento en segundo plano
+    private volatile boolean pondering; // Indica si se piensa durante el turno del rival
+    private ExecutorService ponderExecutor; // Hilo del pensamiento en segundo plano, o null (ponderLock)
+    private Search ponderSearch; // Búsqueda del pensamiento en segundo plano, o null (ponderLock)
+    private Future<?> ponderTask; // Pensamiento en curso, o null (ponderLock)
+    private Bitboard ponderBoard; // Posición pensada, tras la respuesta prevista, o null (ponderLock)
+    private int ponderColor; // Color que mueve en ponderBoard (ponderLock)
+    private volatile long ponderHits; // Movimientos en los que el rival jugó la respuesta prevista
 
     /**
      * Constructor de MinMaxBot.
@@ -26,9 +79,75 @@ public class MinMaxBot implements IAuto, Jugador {
      * @param depth Profundidad máxima de la búsqueda Minmax.
      */
     public MinMaxBot(int size, int depth) {
+        this(size, depth, new TranspositionTable(DEFAULT_TT_BITS, TranspositionTable.ReplacementPolicy.AGED_DEPTH_PREFERRED));
+    }
+
+    /**
+     * Constructor de MinMaxBot con una tabla de transposiciones propia.
+     *
+     * @param size Tamaño del tablero.
+     * @param depth Profundidad máxima de la búsqueda Minmax.
+     * @param tt Tabla de transposiciones a usar, o null para buscar sin ella.
+     */
+    public MinMaxBot(int size, int depth, TranspositionTable tt) {
+        this(size, depth, tt, startupWeights());
+    }
+
+    /**
+     * Constructor de MinMaxBot con unos pesos de la heurística concretos, sin leer el fichero de pesos.
+     *
+     * @param size Tamaño del tablero.
+     * @param depth Profundidad máxima de la búsqueda Minmax.
+     * @param tt Tabla de transposiciones a usar, o null para buscar sin ella.
+     * @param weights Pesos de la heurística (véase {@link Heuristica#WEIGHT_NAMES}).
+     */
+    public MinMaxBot(int size, int depth, TranspositionTable tt, int[] weights) {
         this.COLUMN_SIZE = size;
+        this.legacy = size * size > Bitboard.MAX_CELLS;
         this.setMaxDepth(depth); // Establece la profundidad máxima
-        heuristica = new Heuristica(size); // Inicializa la heurística con el tamaño del tablero
+        heuristica = new Heuristica(size, 4, weights); // Inicializa la heurística con el tamaño del tablero
+        this.tt = tt;
+        this.searches = newSearches(null);
+        this.solvers = new ThreadLocal<EndgameSolver>() {
+            @Override
+            protected EndgameSolver initialValue() {
+                return new EndgameSolver(heuristica, COLUMN_SIZE, MinMaxBot.this.tt);
+            }
+        };
+    }
+
+    /**
+     * Pesos con los que arranca un bot: los del fichero de pesos si lo hay y, si no, los originales.
+     *
+     * @return Pesos de la heurística.
+     * @throws IllegalStateException Si el fichero existe pero no se puede leer.
+     */
+    static int[] startupWeights() {
+        String name = System.getProperty(WEIGHTS_PROPERTY);
+        Path file = Paths.get(name != null ? name : DEFAULT_WEIGHTS_FILE);
+        if (name == null && !Files.exists(file)) return Heuristica.defaultWeights();
+        try {
+            return Heuristica.readWeights(file);
+        } catch (IOException ex) {
+            throw new IllegalStateException("No se pueden leer los pesos de " + file, ex);
+        }
+    }
+
+    /**
+     * Crea las búsquedas por hilo; cada hilo reserva la suya la primera vez que mueve.
+     *
+     * @param ordering Fábrica de la ordenación de jugadas, o null para la ordenación por defecto.
+     * @return Búsquedas por hilo.
+     */
+    private ThreadLocal<Search> newSearches(final Supplier<? extends MoveOrdering> ordering) {
+        return new ThreadLocal<Search>() {
+            @Override
+            protected Search initialValue() {
+                Search search = new Search(heuristica, COLUMN_SIZE, tt);
+                if (ordering != null) search.setMoveOrdering(ordering.get());
+                return search;
+            }
+        };
     }
 
     /**
@@ -40,6 +159,171 @@ public class MinMaxBot implements IAuto, Jugador {
         this.maxDepth = maxDepth;
     }
 
+    /**
+     * Activa la búsqueda con límite de tiempo: cada movimiento profundiza iterativamente
+     * hasta agotar el tiempo indicado y devuelve la mejor columna de la última profundidad
+     * completada. La profundidad máxima sigue actuando como tope.
+     *
+     * @param millis Tiempo máximo por movimiento en milisegundos, o 0 para buscar a profundidad fija.
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimit = millis;
+    }
+
+    /**
+     * Establece el número de hilos de búsqueda. Con más de un hilo, las jugadas de la raíz
+     * se reparten entre un {@link java.util.concurrent.ForkJoinPool}; el resultado es el mismo
+     * que con un solo hilo a igual profundidad.
+     *
+     * @param threads Número de hilos (1 para la búsqueda secuencial).
+     */
+    public void setThreads(int threads) {
+        synchronized (threadsLock) { // Espera a que termine el movimiento multihilo en curso
+            stopThreads();
+            parallel = threads > 1 && !legacy ? new ParallelSearch(heuristica, COLUMN_SIZE, threads) : null;
+        }
+    }
+
+    /**
+     * Activa la búsqueda Lazy SMP: todos los hilos buscan la misma raíz compartiendo la
+     * tabla de transposiciones del bot y se juega la columna que elige el hilo principal.
+     * Sustituye al reparto de la raíz de {@link #setThreads(int)}.
+     *
+     * @param threads Número total de hilos (1 para la búsqueda secuencial).
+     */
+    public void setLazySmp(int threads) {
+        synchronized (threadsLock) { // Espera a que termine el movimiento multihilo en curso
+            stopThreads();
+            lazySmp = threads > 1 && !legacy ? new LazySmpSearch(heuristica, COLUMN_SIZE, threads, tt) : null;
+        }
+    }
+
+    /**
+     * Detiene los hilos de la búsqueda paralela activa, si la hay. Se llama con threadsLock.
+     */
+    private void stopThreads() {
+        if (parallel != null) parallel.shutdown();
+        if (lazySmp != null) lazySmp.shutdown();
+        parallel = null;
+        lazySmp = null;
+    }
+
+    /**
+     * Sustituye la ordenación de jugadas de la búsqueda secuencial. Como las ordenaciones
+     * guardan estado, se pasa una fábrica y cada hilo crea la suya.
+     *
+     * @param ordering Fábrica de la nueva ordenación de jugadas.
+     */
+    public void setMoveOrdering(Supplier<? extends MoveOrdering> ordering) {
+        searches = newSearches(ordering);
+    }
+
+    /**
+     * Establece a partir de cuántas casillas libres se deja de usar la heurística y se
+     * resuelve la posición hasta el final con {@link EndgameSolver}. Con límite de tiempo,
+     * la resolución dispone de la mitad y, si no termina, se juega con la búsqueda normal.
+     *
+     * @param emptyCells Número máximo de casillas libres para resolver, o 0 para no hacerlo nunca.
+     */
+    public void setEndgameThreshold(int emptyCells) {
+        this.endgameThreshold = emptyCells;
+    }
+
+    /**
+     * Establece el libro de aperturas. Las posiciones del libro (o sus reflejos) se
+     * responden sin buscar.
+     *
+     * @param book Libro generado con {@link OpeningBookGenerator}, o null para no usarlo.
+     * @throws IllegalArgumentException Si el libro es de otro tamaño de tablero.
+     */
+    public void setOpeningBook(OpeningBook book) {
+        if (book != null && (book.size() != COLUMN_SIZE || book.connect() != heuristica.WINDOW_LENGTH)) {
+            throw new IllegalArgumentException("El libro es para un tablero de " + book.size());
+        }
+        this.book = book;
+    }
+
+    /**
+     * Activa o desactiva el pensamiento durante el turno del rival. Tras devolver cada
+     * movimiento, un hilo en segundo plano juega la respuesta prevista del rival (la de la
+     * variante principal o, si no la hay, la de una búsqueda corta) y busca la posición
+     * resultante sobre la tabla de transposiciones del bot. Al llegar el siguiente movimiento
+     * se detiene con {@link Search#stop()}: si el rival jugó lo previsto y se alcanzó la
+     * profundidad pedida, se juega ese resultado sin buscar; si no, la búsqueda normal
+     * aprovecha la tabla que se ha ido llenando.
+     *
+     * @param pondering true para pensar en el turno del rival.
+     */
+    public void setPondering(boolean pondering) {
+        synchronized (ponderLock) {
+            this.pondering = pondering;
+            if (pondering && ponderExecutor == null) {
+                ponderExecutor = Executors.newSingleThreadExecutor(task -> {
+                    Thread thread = new Thread(task, "MinMaxBot-ponder");
+                    thread.setDaemon(true); // No impide que termine el programa
+                    return thread;
+                });
+                ponderSearch = new Search(heuristica, COLUMN_SIZE, tt);
+            } else if (!pondering && ponderExecutor != null) {
+                stopPonder();
+                ponderExecutor.shutdown();
+                ponderExecutor = null;
+                ponderSearch = null;
+            }
+        }
+    }
+
+    /**
+     * @return Movimientos en los que el rival jugó la respuesta que se estaba pensando.
+     */
+    public long getPonderHits() {
+        return ponderHits;
+    }
+
+    /**
+     * Establece la caché persistente de análisis, con resultados profundos de ejecuciones
+     * anteriores. La consultan la búsqueda secuencial, Lazy SMP y el pensamiento en el turno
+     * del rival; la búsqueda con la raíz repartida usa tablas propias por hilo y no la consulta.
+     * Para añadirle los resultados de este bot, véase {@link AnalysisCache#merge}.
+     *
+     * @param cache Caché abierta con {@link AnalysisCache#open}, o null para no usarla.
+     */
+    public void setAnalysisCache(AnalysisCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Registra un receptor de las métricas de cada movimiento.
+     *
+     * @param listener Receptor a añadir.
+     */
+    public void addSearchListener(SearchListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Elimina un receptor registrado con {@link #addSearchListener(SearchListener)}.
+     *
+     * @param listener Receptor a eliminar.
+     */
+    public void removeSearchListener(SearchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return Heurística del bot, con los pesos cargados al construirlo.
+     */
+    public Heuristica getHeuristica() {
+        return heuristica;
+    }
+
+    /**
+     * @return Tabla de transposiciones que conserva los resultados entre movimientos, o null.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return tt;
+    }
+
     /**
      * Calcula el movimiento óptimo utilizando el algoritmo Minmax con poda alfa-beta.
      *
@@ -49,12 +333,199 @@ public class MinMaxBot implements IAuto, Jugador {
      */
     @Override
     public int moviment(Tauler t, int color) {
-        // Inicializa la cantidad de jugadas exploradas a 0.
-        jugadas = 0;
-        // Llama a minimax para determinar el mejor movimiento
-        int bestMove = minimax(convertToBoardArray(t), maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, true, color)[0];
-        System.out.printf("## Jugadas exploradas: %d\n", jugadas);
-        return bestMove; // Devuelve la mejor columna
+        if (legacy) return legacyMove(t, color);
+
+        // Busca el mejor movimiento aplicando y deshaciendo jugadas sobre un único bitboard
+        int bestMove;
+        SearchStats stats = null;
+        boolean report = !listeners.isEmpty();
+        int depth = maxDepth;
+        long millis = timeLimit;
+        Bitboard board = Bitboard.fromTauler(t);
+        long start = System.nanoTime();
+        long deadline = start + millis * 1000000L;
+        Search pondered = pondering ? finishPonder(board, color) : null;
+
+        // Las posiciones del libro se responden sin buscar
+        OpeningBook openings = book;
+        int entry = openings != null ? openings.find(board, color) : -1;
+        if (entry >= 0 && board.canPlay(openings.move(entry, board))) {
+            bestMove = openings.move(entry, board);
+            if (report) {
+                stats = new SearchStats(0, 0, 0, 0, 0, 0, openings.depth(entry), bestMove,
+                        openings.score(entry), System.nanoTime() - start, new long[1], new long[1]);
+                for (SearchListener listener : listeners) listener.searchFinished(stats);
+            }
+            return startPonder(board, color, bestMove, -1, depth);
+        }
+
+        // Con pocas casillas libres la posición se resuelve de forma exacta
+        if (COLUMN_SIZE * COLUMN_SIZE - board.moveCount() <= endgameThreshold) {
+            EndgameSolver solver = solvers.get();
+            bestMove = millis > 0 ? solver.solve(board, color, start + millis * 500000L) // Mitad del tiempo
+                                  : solver.solve(board, color);
+            if (bestMove >= 0) {
+                if (report) {
+                    stats = solver.getStats();
+                    for (SearchListener listener : listeners) listener.searchFinished(stats);
+                }
+                return startPonder(board, color, bestMove, -1, depth);
+            }
+        }
+
+        // Si se pensó esta misma posición hasta la profundidad pedida, no hace falta buscar
+        int empty = COLUMN_SIZE * COLUMN_SIZE - board.moveCount();
+        if (pondered != null && (pondered.getCompletedDepth() >= Math.min(depth, empty)
+                || Math.abs(pondered.getBestScore()) > Search.WIN_BOUND)) {
+            bestMove = pondered.getBestColumn();
+            if (report) {
+                stats = pondered.getStats();
+                for (SearchListener listener : listeners) listener.searchFinished(stats);
+            }
+            return startPonder(board, color, bestMove, pondered.getPredictedReply(), depth);
+        }
+
+        int predicted = -1;
+        bestMove = -1;
+        boolean searched = false;
+        if (lazySmp != null || parallel != null) {
+            synchronized (threadsLock) {
+                // Se vuelven a leer con el cerrojo: setThreads y setLazySmp los cambian con él
+                LazySmpSearch lazy = lazySmp;
+                ParallelSearch split = parallel;
+                if (lazy != null) {
+                    lazy.setAnalysisCache(cache);
+                    bestMove = millis > 0 ? lazy.search(board, color, depth, deadline)
+                                          : lazy.search(board, color, depth);
+                    predicted = lazy.getMainSearch().getPredictedReply();
+                    if (report) stats = lazy.getStats();
+                    searched = true;
+                } else if (split != null) {
+                    bestMove = millis > 0 ? split.search(board, color, depth, deadline)
+                                          : split.search(board, color, depth);
+                    if (report) stats = split.getStats();
+                    searched = true;
+                }
+            }
+        }
+        if (!searched) {
+            Search search = searches.get();
+            search.setAnalysisCache(cache);
+            bestMove = millis > 0 ? search.search(board, color, depth, deadline)
+                                  : search.search(board, color, depth);
+            predicted = search.getPredictedReply();
+            if (report) stats = search.getStats();
+        }
+        if (report) {
+            for (SearchListener listener : listeners) listener.searchFinished(stats);
+        }
+        return startPonder(board, color, bestMove, predicted, depth); // Devuelve la mejor columna
+    }
+
+    /**
+     * Calcula el movimiento con el Minimax original sobre una matriz, para los tableros de
+     * más de {@link Bitboard#MAX_CELLS} casillas. No usa el libro, la tabla de
+     * transposiciones, los hilos ni el pensamiento en segundo plano, y las métricas solo
+     * llevan la columna, la puntuación y la duración.
+     *
+     * @param t Tablero actual.
+     * @param color Color del jugador actual.
+     * @return Columna óptima para realizar el movimiento.
+     */
+    private int legacyMove(Tauler t, int color) {
+        long start = System.nanoTime();
+        int[] result = minimax(convertToBoardArray(t), maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, true, color);
+        if (!listeners.isEmpty()) {
+            SearchStats stats = new SearchStats(0, 0, 0, 0, 0, 0, maxDepth, result[0], result[1],
+                    System.nanoTime() - start, new long[1], new long[1]);
+            for (SearchListener listener : listeners) listener.searchFinished(stats);
+        }
+        return result[0];
+    }
+
+    /**
+     * Empieza a pensar, en segundo plano, la posición tras la jugada elegida y la respuesta
+     * prevista del rival, si el pensamiento está activado.
+     *
+     * @param board Tablero antes de la jugada; no se modifica.
+     * @param color Color del bot.
+     * @param column Columna que va a jugar el bot.
+     * @param predicted Respuesta prevista del rival, o -1 para adivinarla con una búsqueda corta.
+     * @param depth Profundidad máxima del pensamiento.
+     * @return La columna recibida, para devolverla desde {@link #moviment(Tauler, int)}.
+     */
+    private int startPonder(Bitboard board, final int color, int column, final int predicted, final int depth) {
+        if (!pondering || column < 0) return column;
+        final Bitboard after = new Bitboard(board);
+        int cell = after.play(column, color);
+        if (heuristica.winningMove(after, cell, color) || after.isFull()) return column;
+
+        synchronized (ponderLock) {
+            if (ponderExecutor == null) return column;
+            final Search search = ponderSearch;
+            stopPonder();
+            search.setAnalysisCache(cache);
+            search.clearStop(); // Así una parada anterior al arranque del hilo no se pierde
+            ponderBoard = null;
+            ponderTask = ponderExecutor.submit(() -> {
+                int reply = predicted;
+                if (reply < 0 || !after.canPlay(reply)) {
+                    reply = search.searchHelper(after, -color, 1, Math.min(depth, PREDICT_DEPTH));
+                }
+                if (reply < 0) return; // Detenido antes de adivinar la respuesta
+                int replyCell = after.play(reply, -color);
+                if (heuristica.winningMove(after, replyCell, -color) || after.isFull()
+                        || COLUMN_SIZE * COLUMN_SIZE - after.moveCount() <= endgameThreshold) {
+                    return; // Partida terminada o posición para el resolvedor de finales
+                }
+                // Se leen tras esperar a la tarea (Future.get), que las hace visibles
+                ponderBoard = new Bitboard(after);
+                ponderColor = color;
+                search.searchHelper(after, color, 1, depth);
+            });
+        }
+        return column;
+    }
+
+    /**
+     * Detiene el pensamiento en segundo plano y comprueba si el rival ha jugado lo previsto.
+     *
+     * @param board Tablero actual.
+     * @param color Color del bot.
+     * @return Búsqueda del pensamiento, con al menos una iteración completada, si pensaba
+     *         exactamente esta posición; si no, null.
+     */
+    private Search finishPonder(Bitboard board, int color) {
+        synchronized (ponderLock) {
+            if (!stopPonder() || ponderBoard == null) return null;
+            boolean hit = ponderColor == color && board.moveCount() == ponderBoard.moveCount()
+                    && board.low(1) == ponderBoard.low(1) && board.high(1) == ponderBoard.high(1)
+                    && board.low(-1) == ponderBoard.low(-1) && board.high(-1) == ponderBoard.high(-1);
+            ponderBoard = null;
+            if (!hit) return null;
+            ++ponderHits;
+            return ponderSearch.getCompletedDepth() > 0 ? ponderSearch : null;
+        }
+    }
+
+    /**
+     * Detiene el pensamiento en curso y espera a que el hilo lo deje. Se debe llamar con
+     * ponderLock.
+     *
+     * @return true si había un pensamiento en curso.
+     */
+    private boolean stopPonder() {
+        if (ponderTask == null) return false;
+        ponderSearch.stop();
+        try {
+            ponderTask.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Error al pensar en el turno del rival", ex.getCause());
+        }
+        ponderTask = null;
+        return true;
     }
 
     /**
@@ -99,7 +570,7 @@ public class MinMaxBot implements IAuto, Jugador {
 
         ArrayList<Integer> colList = heuristica.getValidPlays(board);
 
-        int bestColumn = colList.get((int)Math.floor(Math.random()*colList.size())); // Inicializa la mejor columna
+        int bestColumn = colList.get(0); // Inicializa la mejor columna
         int bestScore = maximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE; // Inicializa la mejor puntuación
         // Itera por todas las columnas posibles
         for (int col: colList) {
@@ -111,7 +582,6 @@ public class MinMaxBot implements IAuto, Jugador {
                 }
 
                 heuristica.play(boardCopy, col, color); // Simula una jugada en la tabla copia
-                ++jugadas;
 
                 int nextPlayerColor = (color == heuristica.PLAYER_PIECE) ? // Alterna el jugador
                                        heuristica.BOT_PIECE : heuristica.PLAYER_PIECE;
@@ -0,0 +1,331 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Clase MonteCarloSearch que implementa la búsqueda de Monte Carlo en árbol (MCTS) con
+ * selección UCT.
+ *
+ * Cada iteración baja por el árbol eligiendo el hijo con mayor cota UCT, expande el primer
+ * nodo sin hijos, termina la partida con jugadas aleatorias sobre el {@link Bitboard} y
+ * propaga el resultado hasta la raíz. Las partidas aleatorias no son del todo ciegas: se
+ * gana si se puede, se bloquea la victoria inmediata del rival y se evitan las jugadas que
+ * se la sirven (véase {@link ThreatAnalysis}). La expansión aplica las mismas reglas, así
+ * que los nodos con una jugada forzada solo tienen un hijo.
+ *
+ * El árbol se guarda en arrays paralelos que se reservan una vez y solo crecen, y los hijos
+ * de un nodo ocupan posiciones consecutivas. Una instancia no debe usarse desde varios hilos
+ * a la vez; el paralelismo de raíz de {@link MctsBot} usa una instancia por hilo.
+ */
+public class MonteCarloSearch {
+
+    public static final double DEFAULT_EXPLORATION = 1.4; // Constante de exploración de UCT (aprox. raíz de 2)
+    private static final int CHECK_INTERVAL = 63; // Iteraciones entre consultas del reloj (potencia de 2 menos 1)
+    private static final int INITIAL_NODES = 1 << 12; // Capacidad inicial del árbol
+    private static final int MAX_NODES = 1 << 23; // Capacidad máxima; al llegar a ella se deja de expandir
+    private static final byte OPEN = 0; // El nodo no es terminal
+    private static final byte WIN = 1; // La jugada del nodo gana la partida
+    private static final byte DRAW = 2; // La jugada del nodo llena el tablero sin ganar
+
+    private final int size; // Tamaño del lado del tablero
+    private final ThreatAnalysis threats; // Amenazas del tablero de la búsqueda
+    private final SplittableRandom random; // Generador de las partidas aleatorias
+    private final int[] path; // Nodos recorridos en la iteración actual
+    private final int[] playout; // Columnas jugadas en la partida aleatoria actual
+    private final int[] centreOrder; // Columnas del centro hacia los extremos
+    private double exploration = DEFAULT_EXPLORATION; // Constante de exploración
+
+    private int[] visits; // Visitas de cada nodo
+    private double[] reward; // Suma de resultados de cada nodo para el jugador que hizo su jugada
+    private int[] firstChild; // Primer hijo de cada nodo, o -1 si no se ha expandido
+    private byte[] childCount; // Número de hijos de cada nodo
+    private byte[] move; // Columna jugada para llegar a cada nodo
+    private byte[] terminal; // OPEN, WIN o DRAW
+    private int nodeCount; // Nodos usados del árbol
+
+    private Bitboard board; // Tablero sobre el que se aplican y deshacen las jugadas
+    private int rootColor; // Color del jugador que mueve en la raíz
+    private long iterations; // Iteraciones (partidas simuladas) de la última búsqueda
+    private volatile boolean stopRequested; // Petición de parada desde otro hilo
+
+    /**
+     * Constructor de MonteCarloSearch.
+     *
+     * @param heuristica Heurística del tablero, de la que se toman las líneas.
+     * @param size Tamaño del tablero.
+     * @param seed Semilla del generador aleatorio.
+     */
+    public MonteCarloSearch(Heuristica heuristica, int size, long seed) {
+        this.size = size;
+        this.threats = new ThreatAnalysis(heuristica);
+        this.random = new SplittableRandom(seed);
+        this.path = new int[size * size + 1];
+        this.playout = new int[size * size + 1];
+        int[] rank = CenterMoveOrdering.centerRanks(size);
+        this.centreOrder = new int[size];
+        for (int col = 0; col < size; col++) {
+            int i = col;
+            while (i > 0 && rank[centreOrder[i - 1]] < rank[col]) {
+                centreOrder[i] = centreOrder[i - 1];
+                i--;
+            }
+            centreOrder[i] = col;
+        }
+        allocate(INITIAL_NODES);
+    }
+
+    /**
+     * Cambia la capacidad del árbol conservando los nodos existentes.
+     *
+     * @param capacity Nueva capacidad.
+     */
+    private void allocate(int capacity) {
+        visits = visits == null ? new int[capacity] : Arrays.copyOf(visits, capacity);
+        reward = reward == null ? new double[capacity] : Arrays.copyOf(reward, capacity);
+        firstChild = firstChild == null ? new int[capacity] : Arrays.copyOf(firstChild, capacity);
+        childCount = childCount == null ? new byte[capacity] : Arrays.copyOf(childCount, capacity);
+        move = move == null ? new byte[capacity] : Arrays.copyOf(move, capacity);
+        terminal = terminal == null ? new byte[capacity] : Arrays.copyOf(terminal, capacity);
+    }
+
+    /**
+     * @param exploration Constante de exploración de UCT; más alta explora más columnas.
+     */
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+    /**
+     * Construye un árbol desde la posición hasta agotar el tiempo o el número de iteraciones.
+     * El tablero se modifica durante la búsqueda pero se devuelve en su estado original.
+     *
+     * @param position Tablero actual, no terminado.
+     * @param color Color del jugador que mueve.
+     * @param maxIterations Número máximo de iteraciones, o 0 sin límite.
+     * @param deadline Instante, según {@link System#nanoTime()}, en que debe terminar, o 0 sin límite.
+     * @return Columna más visitada.
+     */
+    public int search(Bitboard position, int color, long maxIterations, long deadline) {
+        this.board = position;
+        this.rootColor = color;
+        this.iterations = 0;
+        this.stopRequested = false;
+        threats.reset(position);
+        nodeCount = 1;
+        visits[0] = 0;
+        reward[0] = 0.0;
+        firstChild[0] = -1;
+        terminal[0] = OPEN;
+
+        while (!stopRequested && (maxIterations == 0 || iterations < maxIterations)) {
+            if ((iterations & CHECK_INTERVAL) == 0 && deadline != 0L && iterations > 0
+                    && System.nanoTime() - deadline > 0) {
+                break;
+            }
+            iterate();
+            ++iterations;
+        }
+        return bestColumn();
+    }
+
+    /**
+     * Una iteración: selección, expansión, partida aleatoria y propagación.
+     */
+    private void iterate() {
+        int node = 0, depth = 0, color = rootColor;
+        path[0] = 0;
+
+        // Selección: se baja mientras el nodo esté expandido y la partida no haya acabado
+        while (firstChild[node] >= 0 && terminal[node] == OPEN) {
+            node = select(node);
+            int cell = board.play(move[node], color);
+            threats.play(cell, color);
+            path[++depth] = node;
+            color = -color;
+        }
+
+        // Expansión y simulación
+        int winner;
+        if (terminal[node] == WIN) {
+            winner = -color; // Ganó quien hizo la jugada del nodo
+        } else if (terminal[node] == DRAW) {
+            winner = 0;
+        } else {
+            if (visits[node] > 0 || node == 0) {
+                int child = expand(node, color);
+                if (child >= 0) {
+                    node = child;
+                    int cell = board.play(move[node], color);
+                    threats.play(cell, color);
+                    path[++depth] = node;
+                    color = -color;
+                }
+            }
+            winner = terminal[node] == WIN ? -color : terminal[node] == DRAW ? 0 : simulate(color);
+        }
+
+        // Propagación: cada nodo suma el resultado desde el punto de vista de quien movió
+        for (int d = depth; d >= 0; d--) {
+            int n = path[d];
+            int mover = (d & 1) == 1 ? rootColor : -rootColor;
+            ++visits[n];
+            reward[n] += winner == mover ? 1.0 : winner == 0 ? 0.5 : 0.0;
+            if (d > 0) {
+                int col = move[n];
+                int cell = col * size + board.height(col) - 1;
+                threats.undo(cell, mover);
+                board.undo(col);
+            }
+        }
+    }
+
+    /**
+     * Elige el hijo con mayor cota UCT; los hijos sin visitar van primero.
+     *
+     * @param node Nodo expandido.
+     * @return Hijo elegido.
+     */
+    private int select(int node) {
+        int first = firstChild[node], end = first + childCount[node];
+        double logVisits = Math.log(visits[node]);
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < end; child++) {
+            if (visits[child] == 0) return child;
+            double value = reward[child] / visits[child]
+                         + exploration * Math.sqrt(logVisits / visits[child]);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Crea los hijos de un nodo, del centro hacia los extremos. Si se puede ganar o hay que
+     * bloquear, solo se crean esas jugadas.
+     *
+     * @param node Nodo a expandir.
+     * @param color Color del jugador que mueve en el nodo.
+     * @return Primer hijo creado, o -1 si el árbol está lleno.
+     */
+    private int expand(int node, int color) {
+        int wins = threats.winningColumns(board, color);
+        int allowed = wins != 0 ? wins : threats.candidates(board, color) & ~ThreatAnalysis.LOST;
+        int count = Integer.bitCount(allowed);
+        if (nodeCount + count > visits.length) {
+            if (visits.length >= MAX_NODES) return -1;
+            allocate(Math.min(MAX_NODES, 2 * visits.length));
+            if (nodeCount + count > visits.length) return -1;
+        }
+
+        boolean fills = board.moveCount() + 1 == size * size;
+        int first = nodeCount;
+        for (int col : centreOrder) {
+            if ((allowed >> col & 1) == 0) continue;
+            int child = nodeCount++;
+            visits[child] = 0;
+            reward[child] = 0.0;
+            firstChild[child] = -1;
+            childCount[child] = 0;
+            move[child] = (byte) col;
+            terminal[child] = (wins >> col & 1) != 0 ? WIN : fills ? DRAW : OPEN;
+        }
+        firstChild[node] = first;
+        childCount[node] = (byte) count;
+        return first;
+    }
+
+    /**
+     * Termina la partida con jugadas aleatorias y la deshace.
+     *
+     * @param color Color del jugador que mueve.
+     * @return Color del ganador, o 0 si es empate.
+     */
+    private int simulate(int color) {
+        int played = 0, winner = 0;
+        while (board.moveCount() < size * size) {
+            if (threats.winningColumns(board, color) != 0) {
+                winner = color;
+                break;
+            }
+            int allowed = threats.candidates(board, color) & ~ThreatAnalysis.LOST;
+            int col = randomBit(allowed);
+            int cell = board.play(col, color);
+            threats.play(cell, color);
+            playout[played++] = col;
+            color = -color;
+        }
+        while (played > 0) {
+            int col = playout[--played];
+            color = -color;
+            int cell = col * size + board.height(col) - 1;
+            threats.undo(cell, color);
+            board.undo(col);
+        }
+        return winner;
+    }
+
+    /**
+     * @param mask Máscara no vacía.
+     * @return Índice de uno de sus bits activos, elegido al azar.
+     */
+    private int randomBit(int mask) {
+        for (int k = random.nextInt(Integer.bitCount(mask)); k > 0; k--) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * @return Columna del hijo de la raíz con más visitas, o -1 si no hay ninguno.
+     */
+    private int bestColumn() {
+        int first = firstChild[0];
+        if (first < 0) return -1;
+        int best = first;
+        for (int child = first + 1; child < first + childCount[0]; child++) {
+            if (visits[child] > visits[best]) best = child;
+        }
+        return move[best];
+    }
+
+    /**
+     * Copia las estadísticas de los hijos de la raíz por columna, para combinar los árboles
+     * de varios hilos.
+     *
+     * @param visitsOut Visitas de cada columna (se suman a las que ya tenga).
+     * @param rewardOut Suma de resultados de cada columna para el jugador de la raíz (se suman).
+     */
+    public void addRootStats(long[] visitsOut, double[] rewardOut) {
+        int first = firstChild[0];
+        if (first < 0) return;
+        for (int child = first; child < first + childCount[0]; child++) {
+            visitsOut[move[child]] += visits[child];
+            rewardOut[move[child]] += reward[child];
+        }
+    }
+
+    /**
+     * Pide que la búsqueda en curso termine lo antes posible. Se puede llamar desde otro hilo.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @return Número de partidas simuladas en la última búsqueda.
+     */
+    public long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return Número de nodos del árbol de la última búsqueda.
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,37 @@
+package edu.epsevg.prop.lab.c4;
+
+/**
+ * Interfaz de la etapa de ordenación de jugadas de {@link Search}.
+ *
+ * La poda alfa-beta es más eficaz cuanto antes se explora la mejor jugada, así que la
+ * búsqueda ordena las jugadas de cada nodo con una implementación de esta interfaz y le
+ * notifica las jugadas que producen una poda. Cada instancia pertenece a una única búsqueda.
+ */
+public interface MoveOrdering {
+
+    /**
+     * Se llama al empezar cada búsqueda, antes de la primera iteración.
+     */
+    void newSearch();
+
+    /**
+     * Ordena las jugadas de un nodo, de la más prometedora a la menos.
+     *
+     * @param list Jugadas del nodo; se reordenan en el mismo array.
+     * @param count Número de jugadas de la lista.
+     * @param ply Distancia del nodo a la raíz.
+     * @param color Color del jugador que mueve.
+     * @param hashMove Jugada de la tabla de transposiciones o de la variante principal, o -1.
+     */
+    void order(int[] list, int count, int ply, int color, int hashMove);
+
+    /**
+     * Notifica que una jugada ha producido una poda beta.
+     *
+     * @param col Columna que produce la poda.
+     * @param ply Distancia del nodo a la raíz.
+     * @param color Color del jugador que mueve.
+     * @param depth Profundidad restante del nodo.
+     */
+    void cutoff(int col, int ply, int color, int depth);
+}
@@ -0,0 +1,210 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Clase OpeningBook con las jugadas precalculadas de las primeras posiciones de la partida.
+ *
+ * El libro es un fichero binario con una cabecera y una lista de entradas ordenada por
+ * clave, que se proyecta en memoria con un {@link MappedByteBuffer} y se consulta por
+ * búsqueda binaria sin crear objetos. La clave es el hash canónico de la posición (véase
+ * {@link Bitboard#canonicalHash()}) combinado con el turno, así que una posición y su reflejo
+ * comparten entrada; la jugada se guarda para la orientación canónica.
+ *
+ * Formato (big endian):
+ * <pre>
+ *   cabecera (32 bytes): magic, versión, lado, fichas en línea, profundidad, entradas (int),
+ *                        comprobación de las claves Zobrist (long)
+ *   entrada (14 bytes):  clave (long), puntuación (int), columna (byte), profundidad (byte)
+ * </pre>
+ *
+ * Las consultas solo usan lecturas absolutas, así que una instancia se puede compartir entre hilos.
+ */
+public final class OpeningBook {
+
+    private static final int MAGIC = 0x4334424B; // "C4BK"
+    private static final int VERSION = 1; // Versión del formato
+    private static final int HEADER_BYTES = 32; // Tamaño de la cabecera
+    private static final int ENTRY_BYTES = 14; // Tamaño de cada entrada
+
+    private final ByteBuffer buffer; // Fichero proyectado en memoria
+    private final int size; // Tamaño del lado del tablero
+    private final int connect; // Fichas en línea necesarias para ganar
+    private final int depth; // Profundidad de búsqueda con la que se generó
+    private final int count; // Número de entradas
+
+    /**
+     * Constructor de OpeningBook a partir del contenido del fichero.
+     *
+     * @param buffer Contenido del fichero.
+     * @throws IOException Si el fichero no es un libro válido para esta versión.
+     */
+    private OpeningBook(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("No es un libro de aperturas");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Versión de libro no soportada: " + buffer.getInt(4));
+        }
+        if (buffer.getLong(24) != zobristCheck()) {
+            throw new IOException("El libro se generó con otras claves Zobrist");
+        }
+        this.size = buffer.getInt(8);
+        this.connect = buffer.getInt(12);
+        this.depth = buffer.getInt(16);
+        this.count = buffer.getInt(20);
+        if (buffer.capacity() < HEADER_BYTES + (long) count * ENTRY_BYTES) {
+            throw new IOException("Libro truncado");
+        }
+    }
+
+    /**
+     * Abre un libro proyectándolo en memoria.
+     *
+     * @param file Fichero del libro.
+     * @return Libro listo para consultar.
+     * @throws IOException Si no se puede leer o no es un libro válido.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new OpeningBook(buffer);
+        }
+    }
+
+    /**
+     * Escribe un libro. Las entradas no tienen por qué estar ordenadas.
+     *
+     * @param file Fichero de destino.
+     * @param size Tamaño del lado del tablero.
+     * @param connect Fichas en línea necesarias para ganar.
+     * @param depth Profundidad de búsqueda de las entradas.
+     * @param keys Clave de cada entrada (véase {@link #key(Bitboard, int)}); no deben repetirse.
+     * @param scores Puntuación de cada entrada.
+     * @param moves Columna de cada entrada, en la orientación canónica.
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    public static void write(Path file, int size, int connect, int depth,
+                             long[] keys, int[] scores, int[] moves) throws IOException {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + keys.length * ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(connect).putInt(depth).putInt(keys.length)
+           .putLong(zobristCheck());
+        for (int i : order) {
+            out.putLong(keys[i]).putInt(scores[i]).put((byte) moves[i]).put((byte) depth);
+        }
+        out.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) channel.write(out);
+        }
+    }
+
+    /**
+     * Valor que depende de las claves Zobrist, para detectar libros generados con otras.
+     *
+     * @return Valor de comprobación.
+     */
+    private static long zobristCheck() {
+        return Zobrist.piece(0, 0) ^ Zobrist.piece(1, Bitboard.MAX_CELLS - 1);
+    }
+
+    /**
+     * Clave de una posición en el libro.
+     *
+     * @param board Posición.
+     * @param color Color del jugador que mueve.
+     * @return Clave compartida por la posición y su reflejo.
+     */
+    public static long key(Bitboard board, int color) {
+        return board.canonicalHash() ^ Zobrist.side(color);
+    }
+
+    /**
+     * Busca una posición en el libro.
+     *
+     * @param board Posición.
+     * @param color Color del jugador que mueve.
+     * @return Índice de la entrada, o -1 si la posición no está en el libro.
+     */
+    public int find(Bitboard board, int color) {
+        if (board.size() != size) return -1;
+        long key = key(board, color);
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = buffer.getLong(HEADER_BYTES + mid * ENTRY_BYTES);
+            if (k < key) lo = mid + 1;
+            else if (k > key) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * Columna a jugar según una entrada, ya orientada para la posición consultada.
+     *
+     * @param index Índice devuelto por {@link #find(Bitboard, int)}.
+     * @param board Posición consultada.
+     * @return Columna a jugar.
+     */
+    public int move(int index, Bitboard board) {
+        int move = buffer.get(HEADER_BYTES + index * ENTRY_BYTES + 12);
+        return board.isMirrored() ? size - 1 - move : move;
+    }
+
+    /**
+     * @param index Índice devuelto por {@link #find(Bitboard, int)}.
+     * @return Puntuación de la entrada para el jugador que mueve.
+     */
+    public int score(int index) {
+        return buffer.getInt(HEADER_BYTES + index * ENTRY_BYTES + 8);
+    }
+
+    /**
+     * @param index Índice devuelto por {@link #find(Bitboard, int)}.
+     * @return Profundidad con la que se buscó la entrada.
+     */
+    public int depth(int index) {
+        return buffer.get(HEADER_BYTES + index * ENTRY_BYTES + 13) & 0xFF;
+    }
+
+    /**
+     * @return Tamaño del lado del tablero del libro.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Fichas en línea necesarias para ganar en el libro.
+     */
+    public int connect() {
+        return connect;
+    }
+
+    /**
+     * @return Profundidad de búsqueda con la que se generó el libro.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * @return Número de posiciones del libro.
+     */
+    public int entries() {
+        return count;
+    }
+}
@@ -0,0 +1,153 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clase OpeningBookGenerator que genera un {@link OpeningBook} fuera de línea.
+ *
+ * Recorre todas las posiciones alcanzables desde el tablero vacío hasta un número de
+ * jugadas, se queda con una de cada pareja de posiciones simétricas y busca cada una a la
+ * profundidad indicada. Las búsquedas se reparten entre varios hilos que comparten la tabla
+ * de transposiciones.
+ *
+ * Uso: {@code OpeningBookGenerator fichero [jugadas] [profundidad] [lado] [hilos]}.
+ */
+public class OpeningBookGenerator {
+
+    private final int size; // Tamaño del lado del tablero
+    private final Heuristica heuristica; // Heurística de las búsquedas
+    private final TranspositionTable tt; // Tabla compartida por todas las búsquedas
+
+    /**
+     * Constructor de OpeningBookGenerator.
+     *
+     * @param size Tamaño del tablero.
+     */
+    public OpeningBookGenerator(int size) {
+        this.size = size;
+        this.heuristica = new Heuristica(size);
+        this.tt = new TranspositionTable(MinMaxBot.DEFAULT_TT_BITS + 2,
+                TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED);
+    }
+
+    /**
+     * Enumera las posiciones no terminadas con como mucho {@code plies} fichas, una por
+     * clave del libro.
+     *
+     * @param plies Número máximo de fichas.
+     * @return Posiciones distintas salvo simetría.
+     */
+    public List<Bitboard> positions(int plies) {
+        List<Bitboard> positions = new ArrayList<>();
+        collect(new Bitboard(size), 1, plies, new HashSet<Long>(), positions);
+        return positions;
+    }
+
+    /**
+     * Recorrido en profundidad de las posiciones.
+     *
+     * @param board Posición actual.
+     * @param color Color del jugador que mueve.
+     * @param plies Fichas que aún se pueden colocar.
+     * @param seen Claves ya visitadas.
+     * @param out Lista de posiciones encontradas.
+     */
+    private void collect(Bitboard board, int color, int plies, Set<Long> seen, List<Bitboard> out) {
+        if (!seen.add(OpeningBook.key(board, color))) return;
+        out.add(new Bitboard(board));
+        if (plies == 0) return;
+        for (int col = 0; col < size; col++) {
+            if (!board.canPlay(col)) continue;
+            int cell = board.play(col, color);
+            if (!heuristica.winningMove(board, cell, color) && !board.isFull()) {
+                collect(board, -color, plies - 1, seen, out);
+            }
+            board.undo(col);
+        }
+    }
+
+    /**
+     * Busca todas las posiciones y escribe el libro.
+     *
+     * @param file Fichero de destino.
+     * @param plies Número máximo de fichas de las posiciones del libro.
+     * @param depth Profundidad de las búsquedas.
+     * @param threads Número de hilos.
+     * @throws IOException Si no se puede escribir el fichero.
+     * @throws InterruptedException Si se interrumpe la generación.
+     */
+    public void generate(Path file, int plies, final int depth, int threads)
+            throws IOException, InterruptedException {
+        final List<Bitboard> positions = positions(plies);
+        final int n = positions.size();
+        final long[] keys = new long[n];
+        final int[] scores = new int[n];
+        final int[] moves = new int[n];
+        final ThreadLocal<Search> searches = new ThreadLocal<Search>() {
+            @Override
+            protected Search initialValue() {
+                return new Search(heuristica, size, tt);
+            }
+        };
+        final AtomicInteger done = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> tasks = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                final int index = i;
+                tasks.add(executor.submit(() -> {
+                    Bitboard board = positions.get(index);
+                    int color = board.moveCount() % 2 == 0 ? 1 : -1;
+                    Search search = searches.get();
+                    int move = search.search(board, color, depth);
+                    keys[index] = OpeningBook.key(board, color);
+                    scores[index] = search.getBestScore();
+                    moves[index] = board.isMirrored() ? size - 1 - move : move;
+                    int count = done.incrementAndGet();
+                    if (count % 1000 == 0) System.out.printf("%d / %d posiciones\n", count, n);
+                }));
+            }
+            for (Future<?> task : tasks) task.get();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Error al buscar una posición", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        OpeningBook.write(file, size, heuristica.WINDOW_LENGTH, depth, keys, scores, moves);
+    }
+
+    /**
+     * Genera un libro desde la línea de comandos.
+     *
+     * @param args fichero [jugadas] [profundidad] [lado] [hilos].
+     * @throws Exception Si falla la generación.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Uso: OpeningBookGenerator fichero [jugadas] [profundidad] [lado] [hilos]");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : MatchRunner.DEFAULT_SIZE;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        new OpeningBookGenerator(size).generate(file, plies, depth, threads);
+        System.out.printf("Libro escrito en %s en %.1f s\n", file, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,335 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Clase ParallelSearch que reparte las jugadas de la raíz entre los hilos de un {@link ForkJoinPool}.
+ *
+ * Cada iteración de la profundización explora primero, ella sola, la mejor jugada de la
+ * iteración anterior (Young Brothers Wait en la raíz) para fijar una cota alfa, y después
+ * lanza el resto de jugadas en paralelo. Los hilos comparten la mejor puntuación encontrada
+ * y cada jugada se busca con la cota vigente al empezar.
+ *
+ * A igual profundidad devuelve la misma columna que {@link Search}: la de mayor puntuación
+ * y, en caso de empate, la más central. Cada hilo del pool tiene su propia instancia de
+ * {@link Search} con su propia tabla de transposiciones, que se vacía al empezar cada
+ * búsqueda para que no queden puntuaciones de otras raíces.
+ */
+public class ParallelSearch {
+
+    private static final int WORKER_TT_BITS = 18; // 2^18 entradas (4 MB) en la tabla de cada hilo
+
+    private final int size; // Tamaño del lado del tablero
+    private final ForkJoinPool pool; // Hilos que exploran las jugadas de la raíz
+    private final ThreadLocal<Search> workers; // Búsqueda de cada hilo del pool
+    private final List<TranspositionTable> workerTables = new CopyOnWriteArrayList<>(); // Tablas de los hilos del pool
+    private final int[] rootPreference; // Desempate de la raíz, igual que en Search
+    private final ThreatAnalysis threats; // Jugadas forzadas de la raíz
+
+    private int sharedScore; // Mejor puntuación de la iteración en curso (protegida por this)
+    private int sharedColumn; // Columna de sharedScore (protegida por this)
+    private volatile boolean aborted; // Indica que alguna jugada de la iteración se ha abortado
+    private int bestColumn; // Mejor columna de la última iteración completada
+    private int bestScore; // Puntuación de la mejor columna
+    private int completedDepth; // Profundidad de la última iteración completada
+    private long nodes; // Nodos explorados en la última búsqueda, sumando los hilos (protegido por this)
+    private long leafEvaluations; // Hojas evaluadas (protegido por this)
+    private long betaCutoffs; // Podas beta (protegido por this)
+    private long firstMoveCutoffs; // Podas beta de la primera jugada (protegido por this)
+    private long ttProbes; // Consultas a las tablas de transposiciones (protegido por this)
+    private long ttHits; // Consultas con éxito (protegido por this)
+    private long[] depthNanos; // Duración de cada iteración completada, indexada por profundidad
+    private long[] depthNodes; // Nodos de cada iteración completada, indexados por profundidad
+    private long elapsedNanos; // Duración de la última búsqueda
+
+    /**
+     * Constructor de ParallelSearch.
+     *
+     * @param heuristica Heurística usada en las hojas.
+     * @param size Tamaño del tablero.
+     * @param threads Número de hilos de búsqueda.
+     */
+    public ParallelSearch(final Heuristica heuristica, final int size, int threads) {
+        this.size = size;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.rootPreference = CenterMoveOrdering.centerRanks(size);
+        this.threats = new ThreatAnalysis(heuristica);
+        this.workers = new ThreadLocal<Search>() {
+            @Override
+            protected Search initialValue() {
+                TranspositionTable table = new TranspositionTable(WORKER_TT_BITS,
+                        TranspositionTable.ReplacementPolicy.AGED_DEPTH_PREFERRED);
+                workerTables.add(table);
+                return new Search(heuristica, size, table);
+            }
+        };
+    }
+
+    /**
+     * Busca la mejor jugada a una profundidad fija.
+     *
+     * @param position Tablero actual; no se modifica.
+     * @param color Color del jugador que mueve.
+     * @param depth Profundidad de la búsqueda.
+     * @return Columna óptima.
+     */
+    public int search(Bitboard position, int color, int depth) {
+        return iterate(position, color, depth, 0L);
+    }
+
+    /**
+     * Busca la mejor jugada profundizando iterativamente hasta agotar el tiempo.
+     *
+     * @param position Tablero actual; no se modifica.
+     * @param color Color del jugador que mueve.
+     * @param maxDepth Profundidad máxima a alcanzar.
+     * @param deadline Instante, según {@link System#nanoTime()}, en que debe terminar la búsqueda.
+     * @return Mejor columna de la última iteración completada.
+     */
+    public int search(Bitboard position, int color, int maxDepth, long deadline) {
+        return iterate(position, color, maxDepth, deadline);
+    }
+
+    /**
+     * Bucle de profundización iterativa con la raíz repartida entre los hilos.
+     *
+     * @param position Tablero actual.
+     * @param color Color del jugador que mueve.
+     * @param maxDepth Profundidad máxima.
+     * @param deadline Instante en que debe terminar la búsqueda, o 0 sin límite.
+     * @return Mejor columna de la última iteración completada.
+     */
+    private int iterate(Bitboard position, int color, int maxDepth, long deadline) {
+        long start = System.nanoTime();
+        synchronized (this) {
+            nodes = leafEvaluations = betaCutoffs = firstMoveCutoffs = ttProbes = ttHits = 0L;
+        }
+        bestColumn = -1;
+        bestScore = 0;
+        completedDepth = 0;
+        // Las entradas de búsquedas anteriores podrían podar con puntuaciones de otras raíces y
+        // cambiar la columna elegida; se vacían para dar el mismo resultado que Search
+        for (TranspositionTable table : workerTables) table.clear();
+
+        // Las mismas columnas que explora Search en la raíz: las forzadas por las amenazas y,
+        // en una posición simétrica, solo las de la derecha
+        threats.reset(position);
+        int allowed = threats.winningColumns(position, color);
+        if (allowed == 0) allowed = threats.candidates(position, color) & ~ThreatAnalysis.LOST;
+        if (position.isSymmetric()) allowed &= -1 << (size / 2);
+        int[] order = new int[size];
+        int count = 0;
+        for (int col = 0; col < size; col++) {
+            if ((allowed >> col & 1) != 0) order[count++] = col;
+        }
+        sortByPreference(order, count);
+
+        int empty = size * size - position.moveCount();
+        int limit = Math.max(1, Math.min(maxDepth, empty));
+        depthNanos = new long[limit + 1];
+        depthNodes = new long[limit + 1];
+        for (int depth = 1; depth <= limit; depth++) {
+            long iterationStart = System.nanoTime();
+            long iterationNodes = getNodes();
+            aborted = false;
+            boolean abortable = completedDepth > 0 && deadline != 0L;
+
+            // La mejor jugada de la iteración anterior se explora primero y en solitario
+            if (bestColumn >= 0) moveToFront(order, count, bestColumn);
+            RootMove first = new RootMove(position, color, order[0], depth, abortable, deadline);
+            synchronized (this) {
+                sharedScore = -Search.INFINITY;
+                sharedColumn = -1;
+            }
+            pool.invoke(first);
+
+            // El resto de jugadas se exploran en paralelo con la cota compartida
+            if (!aborted && count > 1) {
+                ArrayList<RootMove> tasks = new ArrayList<>(count - 1);
+                for (int i = 1; i < count; i++) {
+                    tasks.add(new RootMove(position, color, order[i], depth, abortable, deadline));
+                }
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+            }
+            if (aborted) break;
+
+            synchronized (this) {
+                bestColumn = sharedColumn;
+                bestScore = sharedScore;
+            }
+            completedDepth = depth;
+            depthNanos[depth] = System.nanoTime() - iterationStart;
+            depthNodes[depth] = getNodes() - iterationNodes;
+            if (bestScore > Search.WIN_BOUND || bestScore < -Search.WIN_BOUND) break;
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return bestColumn;
+    }
+
+    /**
+     * Tarea que explora una jugada de la raíz sobre una copia del tablero.
+     */
+    private final class RootMove extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Bitboard board; // Copia del tablero de la raíz
+        private final int color; // Color del jugador que mueve en la raíz
+        private final int col; // Columna a explorar
+        private final int depth; // Profundidad de la iteración
+        private final boolean abortable; // Indica si se puede abortar por tiempo
+        private final long deadline; // Instante límite de la búsqueda
+
+        RootMove(Bitboard position, int color, int col, int depth, boolean abortable, long deadline) {
+            this.board = new Bitboard(position);
+            this.color = color;
+            this.col = col;
+            this.depth = depth;
+            this.abortable = abortable;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void compute() {
+            if (aborted) return;
+            int alpha;
+            synchronized (ParallelSearch.this) {
+                // Si esta columna gana los empates, se busca con alfa - 1 para detectarlos
+                alpha = sharedColumn >= 0 && rootPreference[col] > rootPreference[sharedColumn]
+                        ? sharedScore - 1 : sharedScore;
+            }
+            // Salvo la primera jugada, se prueba con ventana nula y solo se repite si supera alfa
+            Search search = workers.get();
+            int beta = alpha == -Search.INFINITY ? Search.INFINITY : alpha + 1;
+            int score = explore(search, alpha, beta);
+            if (score > alpha && beta != Search.INFINITY && !search.isAborted()) {
+                score = explore(search, alpha, Search.INFINITY);
+            }
+            if (search.isAborted()) {
+                aborted = true;
+                return;
+            }
+            if (score > alpha) {
+                synchronized (ParallelSearch.this) {
+                    if (sharedColumn < 0 || score > sharedScore
+                            || (score == sharedScore && rootPreference[col] > rootPreference[sharedColumn])) {
+                        sharedScore = score;
+                        sharedColumn = col;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Busca la jugada con una ventana y suma sus contadores a los de la búsqueda.
+         *
+         * @param search Búsqueda del hilo.
+         * @param alpha Valor alfa.
+         * @param beta Valor beta.
+         * @return Puntuación de la jugada.
+         */
+        private int explore(Search search, int alpha, int beta) {
+            int score = search.searchMove(board, color, col, depth, alpha, beta,
+                                          abortable, abortable ? deadline : 0L);
+            synchronized (ParallelSearch.this) {
+                nodes += search.getNodes();
+                leafEvaluations += search.getLeafEvaluations();
+                betaCutoffs += search.getBetaCutoffs();
+                firstMoveCutoffs += search.getFirstMoveCutoffs();
+                ttProbes += search.getTtProbes();
+                ttHits += search.getTtHits();
+            }
+            return score;
+        }
+    }
+
+    /**
+     * Ordena las columnas de la más central a la más extrema.
+     *
+     * @param order Columnas a ordenar.
+     * @param count Número de columnas.
+     */
+    private void sortByPreference(int[] order, int count) {
+        for (int i = 1; i < count; i++) {
+            int col = order[i];
+            int j = i - 1;
+            while (j >= 0 && rootPreference[order[j]] < rootPreference[col]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = col;
+        }
+    }
+
+    /**
+     * Mueve una columna al principio de la lista, si está en ella.
+     *
+     * @param order Lista de columnas.
+     * @param count Número de columnas de la lista.
+     * @param col Columna a adelantar.
+     */
+    private static void moveToFront(int[] order, int count, int col) {
+        for (int i = 0; i < count; ++i) {
+            if (order[i] == col) {
+                System.arraycopy(order, 0, order, 1, i);
+                order[0] = col;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Detiene los hilos del pool. La instancia no se puede usar después.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return Mejor columna encontrada en la última búsqueda.
+     */
+    public int getBestColumn() {
+        return bestColumn;
+    }
+
+    /**
+     * @return Puntuación de la mejor columna, relativa al color que mueve en la raíz.
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return Profundidad de la última iteración completada.
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * @return Número de jugadas exploradas en la última búsqueda, sumando todos los hilos.
+     */
+    public synchronized long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Métricas de la última búsqueda, sumando todos los hilos.
+     */
+    public synchronized SearchStats getStats() {
+        int length = completedDepth + 1;
+        return new SearchStats(nodes, leafEvaluations, betaCutoffs, firstMoveCutoffs, ttProbes, ttHits,
+                completedDepth, bestColumn, bestScore, elapsedNanos,
+                Arrays.copyOf(depthNanos, length), Arrays.copyOf(depthNodes, length));
+    }
+}
@@ -0,0 +1,626 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.Arrays;
+
+/**
+ * Clase Search que implementa la búsqueda Minimax con poda alfa-beta (en forma negamax)
+ * aplicando y deshaciendo las jugadas sobre un único {@link Bitboard} mutable.
+ *
+ * La búsqueda se hace por profundización iterativa: cada iteración explora primero la
+ * variante principal de la anterior y, si se indica un límite de tiempo, la iteración en
+ * curso se aborta al superarlo y se devuelve el resultado de la última completada.
+ *
+ * Cada iteración empieza con una ventana de aspiración alrededor de la puntuación de una
+ * anterior y, si el resultado queda fuera, se repite con la ventana ampliada por ese lado.
+ * Dentro del árbol se usa Principal Variation Search: solo la primera jugada de cada nodo se
+ * busca con la ventana completa y el resto se prueban con ventana nula, volviendo a buscarlas
+ * únicamente si la superan.
+ *
+ * Antes de generar las jugadas de un nodo se analizan las amenazas (véase
+ * {@link ThreatAnalysis}): una victoria inmediata o una doble amenaza del rival resuelven el
+ * nodo sin buscar, un bloqueo obligado deja una única jugada y las jugadas que sirven una
+ * victoria al rival no se exploran.
+ *
+ * La tabla de transposiciones se indexa con el hash canónico, así que una posición y su
+ * reflejo horizontal comparten entrada, y en las posiciones simétricas solo se exploran las
+ * columnas de la mitad derecha, ya que las de la izquierda dan la misma puntuación.
+ *
+ * Todos los buffers se reservan en el constructor: la búsqueda no crea objetos por nodo
+ * y el resultado se consulta mediante {@link #getBestColumn()} y {@link #getBestScore()}.
+ * Una instancia no debe usarse desde varios hilos a la vez, aunque varias instancias pueden
+ * compartir la misma {@link TranspositionTable}.
+ */
+public class Search {
+
+    public static final int WIN_SCORE = 1000000; // Puntuación de una victoria inmediata
+    static final int INFINITY = WIN_SCORE + 1; // Cota superior de cualquier puntuación
+    static final int WIN_BOUND = WIN_SCORE - Bitboard.MAX_CELLS; // Puntuaciones mayores indican victoria forzada
+    private static final int CHECK_INTERVAL = 1023; // Nodos entre consultas del reloj (potencia de 2 menos 1)
+    static final int ASPIRATION_WINDOW = 8; // Semiancho inicial de la ventana de aspiración
+
+    private final Heuristica heuristica; // Heurística para evaluar las hojas
+    private final IncrementalEvaluator evaluator; // Puntuación de la heurística mantenida jugada a jugada
+    private final ThreatAnalysis threats; // Detección de jugadas forzadas
+    private final int size; // Tamaño del lado del tablero
+    private final int[][] moves; // Jugadas candidatas de cada nivel (ply)
+    private final TranspositionTable tt; // Tabla de transposiciones, puede ser null
+    private AnalysisCache cache; // Resultados persistentes de otras ejecuciones, o null
+    private MoveOrdering ordering; // Etapa de ordenación de jugadas
+    private final int[][] pv; // Variante principal de cada nivel (tabla triangular)
+    private final int[] pvLength; // Longitud de la variante principal de cada nivel
+    private final int[] prevPv; // Variante principal de la última iteración completada
+    private final int[] rootPreference; // Desempate de la raíz: a igual puntuación gana la columna más central
+    private int prevPvLength; // Longitud de prevPv
+    private boolean followPv; // Indica si el nodo actual está sobre la variante anterior
+
+    private Bitboard board; // Tablero sobre el que se aplican y deshacen las jugadas
+    private int rootColor; // Color del jugador para el que se busca
+    private long nodes; // Nodos explorados en la última búsqueda
+    private long leafEvaluations; // Hojas evaluadas con la heurística
+    private long betaCutoffs; // Podas beta de la última búsqueda
+    private long firstMoveCutoffs; // Podas beta producidas por la primera jugada explorada
+    private long ttProbes; // Consultas a la tabla de transposiciones
+    private long ttHits; // Consultas que encontraron la posición
+    private final long[] depthNanos; // Duración de cada iteración completada, indexada por profundidad
+    private final long[] depthNodes; // Nodos de cada iteración completada, indexados por profundidad
+    private long elapsedNanos; // Duración de la última búsqueda
+    private boolean timed; // Indica si la búsqueda tiene límite de tiempo
+    private long deadline; // Instante (System.nanoTime) en que debe terminar la búsqueda
+    private boolean aborted; // Indica que la iteración en curso se ha abortado
+    private boolean abortable; // Indica si la iteración en curso se puede abortar
+    private volatile boolean stopRequested; // Petición de parada desde otro hilo
+    private int iterationColumn; // Mejor columna de la iteración en curso
+    private int bestColumn; // Mejor columna de la última iteración completada
+    private int bestScore; // Puntuación de la mejor columna
+    private int completedDepth; // Profundidad de la última iteración completada
+    private final int[] depthScores; // Puntuación de cada iteración completada, indexada por profundidad
+
+    /**
+     * Constructor de Search sin tabla de transposiciones.
+     *
+     * @param heuristica Heurística usada en las hojas.
+     * @param size Tamaño del tablero.
+     */
+    public Search(Heuristica heuristica, int size) {
+        this(heuristica, size, null);
+    }
+
+    /**
+     * Constructor de Search.
+     *
+     * @param heuristica Heurística usada en las hojas.
+     * @param size Tamaño del tablero.
+     * @param tt Tabla de transposiciones compartida entre búsquedas, o null para no usarla.
+     */
+    public Search(Heuristica heuristica, int size, TranspositionTable tt) {
+        int maxPly = size * size + 1;
+        this.heuristica = heuristica;
+        this.evaluator = new IncrementalEvaluator(heuristica, size);
+        this.threats = new ThreatAnalysis(heuristica);
+        this.size = size;
+        this.moves = new int[maxPly][size];
+        this.tt = tt;
+        this.ordering = new KillerHistoryMoveOrdering(size);
+        this.pv = new int[maxPly + 1][maxPly + 1];
+        this.pvLength = new int[maxPly + 1];
+        this.prevPv = new int[maxPly + 1];
+        this.depthNanos = new long[maxPly + 1];
+        this.depthNodes = new long[maxPly + 1];
+        this.depthScores = new int[maxPly + 1];
+        this.rootPreference = CenterMoveOrdering.centerRanks(size);
+    }
+
+    /**
+     * Sustituye la etapa de ordenación de jugadas.
+     *
+     * @param ordering Nueva ordenación; no debe compartirse con otras búsquedas.
+     */
+    public void setMoveOrdering(MoveOrdering ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * Establece la caché persistente que se consulta en los nodos con profundidad restante
+     * de al menos {@link AnalysisCache#MIN_DEPTH} cuando la tabla de transposiciones no
+     * tiene una entrada suficiente. Las entradas encontradas se copian en la tabla.
+     *
+     * @param cache Caché a consultar, o null para no usar ninguna.
+     */
+    public void setAnalysisCache(AnalysisCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Busca la mejor jugada para un color a una profundidad fija.
+     * El tablero se modifica durante la búsqueda pero se devuelve en su estado original.
+     *
+     * @param position Tablero actual.
+     * @param color Color del jugador que mueve.
+     * @param depth Profundidad de la búsqueda.
+     * @return Columna óptima.
+     */
+    public int search(Bitboard position, int color, int depth) {
+        timed = false;
+        stopRequested = false;
+        return iterate(position, color, 1, depth, false);
+    }
+
+    /**
+     * Busca la mejor jugada profundizando iterativamente hasta agotar el tiempo.
+     * La primera iteración siempre se completa, así que siempre se devuelve una columna válida.
+     *
+     * @param position Tablero actual.
+     * @param color Color del jugador que mueve.
+     * @param maxDepth Profundidad máxima a alcanzar.
+     * @param deadline Instante, según {@link System#nanoTime()}, en que debe terminar la búsqueda.
+     * @return Mejor columna de la última iteración completada.
+     */
+    public int search(Bitboard position, int color, int maxDepth, long deadline) {
+        this.timed = true;
+        this.deadline = deadline;
+        stopRequested = false;
+        return iterate(position, color, 1, maxDepth, false);
+    }
+
+    /**
+     * Búsqueda auxiliar de Lazy SMP: profundiza desde {@code firstDepth} hasta {@code maxDepth}
+     * o hasta que se llame a {@link #stop()}, sin límite de tiempo propio. Todas las
+     * iteraciones se pueden abortar y no se cambia la generación de la tabla, que gestiona
+     * la búsqueda principal. La petición de parada debe borrarse antes con {@link #clearStop()}.
+     *
+     * @param position Tablero de la raíz; no debe compartirse con otros hilos.
+     * @param color Color del jugador que mueve.
+     * @param firstDepth Profundidad de la primera iteración.
+     * @param maxDepth Profundidad máxima.
+     * @return Mejor columna de la última iteración completada, o -1 si no se completó ninguna.
+     */
+    int searchHelper(Bitboard position, int color, int firstDepth, int maxDepth) {
+        timed = false;
+        return iterate(position, color, firstDepth, maxDepth, true);
+    }
+
+    /**
+     * Bucle de profundización iterativa.
+     *
+     * @param position Tablero actual.
+     * @param color Color del jugador que mueve.
+     * @param firstDepth Profundidad de la primera iteración.
+     * @param maxDepth Profundidad máxima.
+     * @param helper Indica si es una búsqueda auxiliar de Lazy SMP.
+     * @return Mejor columna de la última iteración completada.
+     */
+    private int iterate(Bitboard position, int color, int firstDepth, int maxDepth, boolean helper) {
+        long start = System.nanoTime();
+        this.board = position;
+        this.rootColor = color;
+        resetCounters();
+        this.aborted = false;
+        this.bestColumn = -1;
+        this.bestScore = 0;
+        this.completedDepth = 0;
+        this.prevPvLength = 0;
+        if (tt != null && !helper) tt.nextGeneration();
+        ordering.newSearch();
+        evaluator.reset(position, color);
+        threats.reset(position);
+
+        int empty = size * size - position.moveCount();
+        int limit = Math.max(1, Math.min(maxDepth, empty));
+        for (int depth = Math.min(firstDepth, limit); depth <= limit; depth++) {
+            abortable = helper || completedDepth > 0;
+            long iterationStart = System.nanoTime();
+            long iterationNodes = nodes;
+            int score = aspiration(depth, color);
+            if (aborted) break;
+
+            depthNanos[depth] = System.nanoTime() - iterationStart;
+            depthNodes[depth] = nodes - iterationNodes;
+            bestColumn = iterationColumn;
+            bestScore = score;
+            depthScores[depth] = score;
+            completedDepth = depth;
+            prevPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, prevPv, 0, prevPvLength);
+
+            if (score > WIN_BOUND || score < -WIN_BOUND) break; // Resultado forzado, no hace falta seguir
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return bestColumn;
+    }
+
+    /**
+     * Busca la raíz con una ventana de aspiración centrada en la puntuación de una iteración
+     * anterior. Si falla por abajo o por arriba, se amplía ese lado y se repite; la columna de
+     * un intento fallido no se usa, ya que con un fallo por abajo solo se sabe que ninguna
+     * jugada alcanza alfa.
+     *
+     * @param depth Profundidad de la iteración.
+     * @param color Color del jugador que mueve.
+     * @return Puntuación exacta de la raíz (sin significado si se aborta).
+     */
+    private int aspiration(int depth, int color) {
+        // La puntuación oscila según quién hace la última jugada, así que se centra la ventana
+        // en la iteración de la misma paridad
+        int delta = ASPIRATION_WINDOW;
+        int guess = depth > 2 && completedDepth >= depth - 2 ? depthScores[depth - 2] : bestScore;
+        boolean center = completedDepth > 0 && guess <= WIN_BOUND && guess >= -WIN_BOUND;
+        int alpha = center ? guess - delta : -INFINITY;
+        int beta = center ? guess + delta : INFINITY;
+        while (true) {
+            followPv = true;
+            iterationColumn = -1;
+            int score = negamax(depth, alpha, beta, color, 0);
+            if (aborted || (score > alpha && score < beta)) return score;
+            delta *= 4;
+            if (score <= alpha) alpha = delta > WIN_BOUND ? -INFINITY : Math.max(-INFINITY, score - delta);
+            else beta = delta > WIN_BOUND ? INFINITY : Math.min(INFINITY, score + delta);
+        }
+    }
+
+    /**
+     * Pone a cero los contadores de la búsqueda.
+     */
+    private void resetCounters() {
+        nodes = 0;
+        leafEvaluations = 0;
+        betaCutoffs = 0;
+        firstMoveCutoffs = 0;
+        ttProbes = 0;
+        ttHits = 0;
+        Arrays.fill(depthNanos, 0L);
+        Arrays.fill(depthNodes, 0L);
+    }
+
+    /**
+     * Algoritmo negamax con poda alfa-beta. La puntuación siempre es relativa al jugador
+     * que mueve; en las hojas se evalúa el tablero desde el punto de vista del color raíz.
+     *
+     * @param depth Profundidad restante.
+     * @param alpha Valor alfa para la poda.
+     * @param beta Valor beta para la poda.
+     * @param color Color del jugador que mueve.
+     * @param ply Distancia a la raíz.
+     * @return Puntuación del nodo para el jugador que mueve (sin significado si se aborta).
+     */
+    private int negamax(int depth, int alpha, int beta, int color, int ply) {
+        pvLength[ply] = ply;
+        if (depth == 0) {
+            ++leafEvaluations;
+            int score = evaluator.score();
+            return color == rootColor ? score : -score;
+        }
+
+        // Consulta la tabla de transposiciones
+        int alphaOrig = alpha;
+        long key = 0L;
+        int hashMove = -1;
+        boolean mirrored = board.isMirrored(); // Las jugadas de la tabla están en la orientación canónica
+        if (tt != null || cache != null) {
+            key = board.canonicalHash() ^ Zobrist.side(color) ^ Zobrist.perspective(rootColor);
+            long entry = tt != null ? tt.probe(key) : 0L;
+            ++ttProbes;
+            if (cache != null && depth >= AnalysisCache.MIN_DEPTH
+                    && (entry == 0L || TranspositionTable.depth(entry) < depth)) {
+                long cached = cache.probe(key);
+                if (cached != 0L && (entry == 0L || TranspositionTable.depth(cached) > TranspositionTable.depth(entry))) {
+                    entry = cached;
+                    if (tt != null) {
+                        tt.store(key, TranspositionTable.depth(entry), TranspositionTable.bound(entry),
+                                TranspositionTable.score(entry), TranspositionTable.move(entry));
+                    }
+                }
+            }
+            if (entry != 0L) {
+                ++ttHits;
+                hashMove = TranspositionTable.move(entry);
+                if (mirrored && hashMove >= 0) hashMove = size - 1 - hashMove;
+            }
+            if (entry != 0L && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        // Jugadas forzadas; en la raíz se sigue buscando para tener una columna que devolver
+        int allowed = threats.winningColumns(board, color);
+        if (allowed != 0) {
+            if (ply > 0) return WIN_SCORE - ply - 1;
+        } else {
+            allowed = threats.candidates(board, color);
+            if (allowed < 0 && ply > 0) return -(WIN_SCORE - ply - 2); // El rival gana en su jugada
+            allowed &= ~ThreatAnalysis.LOST;
+        }
+
+        // En una posición simétrica basta con explorar la mitad derecha
+        if (board.hash() == board.mirrorHash() && board.isSymmetric()) allowed &= -1 << (size / 2);
+        int[] list = moves[ply];
+        int count = 0;
+        for (int col = 0; col < size; ++col) {
+            if ((allowed >> col & 1) != 0) list[count++] = col;
+        }
+
+        // La jugada de la variante principal anterior tiene prioridad sobre la de la tabla
+        if (followPv) {
+            if (ply < prevPvLength) hashMove = prevPv[ply];
+            else followPv = false;
+        }
+        ordering.order(list, count, ply, color, hashMove);
+
+        int best = -INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < count; ++i) {
+            int col = list[i];
+            // En la raíz, una columna preferida se explora con alfa - 1 para detectar empates
+            boolean preferred = ply == 0 && bestMove >= 0 && rootPreference[col] > rootPreference[bestMove];
+            int lower = preferred ? alpha - 1 : alpha;
+            int cell = board.play(col, color);
+            evaluator.play(cell, color);
+            if (depth > 1) threats.play(cell, color); // Las hojas no consultan las amenazas
+            int score;
+            if (i == 0) {
+                score = child(cell, depth, lower, beta, color, ply);
+            } else {
+                // Ventana nula: solo se repite con la ventana completa si la jugada supera alfa
+                score = child(cell, depth, lower, lower + 1, color, ply);
+                if (score > lower && score < beta && !aborted) {
+                    score = child(cell, depth, lower, beta, color, ply);
+                }
+            }
+            board.undo(col);
+            evaluator.undo(cell, color);
+            if (depth > 1) threats.undo(cell, color);
+            followPv = false;
+            if (aborted) return 0;
+
+            if (score > best || (preferred && score == best)) {
+                best = score;
+                bestMove = col;
+                if (ply == 0) {
+                    iterationColumn = col;
+                    updatePv(0, col);
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (ply > 0) updatePv(ply, col);
+            }
+            if (alpha >= beta) { // Poda
+                ++betaCutoffs;
+                if (i == 0) ++firstMoveCutoffs;
+                ordering.cutoff(col, ply, color, depth);
+                break;
+            }
+        }
+
+        if (tt != null) {
+            int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                      : best >= beta ? TranspositionTable.LOWER
+                      : TranspositionTable.EXACT;
+            int move = mirrored && bestMove >= 0 ? size - 1 - bestMove : bestMove;
+            tt.store(key, depth, bound, toTable(best, ply), move);
+        }
+        return best;
+    }
+
+    /**
+     * Puntúa el hijo resultante de una jugada ya aplicada sobre el tablero.
+     *
+     * @param cell Casilla de la ficha recién colocada.
+     * @param depth Profundidad restante del padre.
+     * @param alpha Valor alfa del padre.
+     * @param beta Valor beta del padre.
+     * @param color Color del jugador que ha movido.
+     * @param ply Distancia del padre a la raíz.
+     * @return Puntuación del hijo para el jugador que ha movido.
+     */
+    private int child(int cell, int depth, int alpha, int beta, int color, int ply) {
+        ++nodes;
+        if (abortable && (nodes & CHECK_INTERVAL) == 0
+                && (stopRequested || (timed && System.nanoTime() - deadline > 0))) {
+            aborted = true;
+        }
+        pvLength[ply + 1] = ply + 1;
+        if (heuristica.winningMove(board, cell, color)) { // Solo la última ficha puede ganar
+            return WIN_SCORE - ply - 1; // Las victorias más cercanas valen más
+        }
+        if (board.isFull()) {
+            return 0;
+        }
+        return -negamax(depth - 1, -beta, -alpha, -color, ply + 1);
+    }
+
+    /**
+     * Explora una única jugada de la raíz con la ventana indicada. Lo usan las búsquedas
+     * paralelas, que reparten las jugadas de la raíz entre varias instancias.
+     *
+     * @param position Tablero de la raíz; no debe compartirse con otros hilos.
+     * @param color Color del jugador que mueve en la raíz.
+     * @param col Columna a explorar.
+     * @param depth Profundidad de la búsqueda, contando la jugada de la raíz.
+     * @param alpha Valor alfa para la poda.
+     * @param beta Valor beta para la poda.
+     * @param abortable Indica si la búsqueda se puede abortar por tiempo o con {@link #stop()}.
+     * @param deadline Instante, según {@link System#nanoTime()}, en que debe abortarse, o 0 sin límite.
+     * @return Puntuación de la jugada para el color raíz (sin significado si {@link #isAborted()}).
+     */
+    public int searchMove(Bitboard position, int color, int col, int depth, int alpha, int beta,
+                          boolean abortable, long deadline) {
+        this.board = position;
+        this.rootColor = color;
+        resetCounters();
+        this.aborted = false;
+        this.stopRequested = false;
+        this.abortable = abortable;
+        this.timed = deadline != 0L;
+        this.deadline = deadline;
+        this.followPv = false;
+        this.prevPvLength = 0;
+        evaluator.reset(position, color);
+        threats.reset(position);
+
+        int cell = board.play(col, color);
+        evaluator.play(cell, color);
+        threats.play(cell, color);
+        int score = child(cell, Math.max(depth, 1), alpha, beta, color, 0);
+        board.undo(col);
+        evaluator.undo(cell, color);
+        threats.undo(cell, color);
+        return score;
+    }
+
+    /**
+     * Pide que la búsqueda en curso se aborte lo antes posible. Se puede llamar desde otro hilo;
+     * la búsqueda devuelve el resultado de la última iteración completada.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Borra una petición de parada pendiente antes de lanzar {@link #searchHelper}.
+     */
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * @return true si la última búsqueda se abortó antes de terminar la iteración en curso.
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Actualiza la variante principal de un nivel con la jugada y la variante del hijo.
+     *
+     * @param ply Nivel a actualizar.
+     * @param col Jugada que mejora alfa.
+     */
+    private void updatePv(int ply, int col) {
+        int[] line = pv[ply];
+        line[ply] = col;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, line, ply + 1, length - ply - 1);
+        pvLength[ply] = length;
+    }
+
+    /**
+     * Convierte una puntuación relativa a la raíz en relativa al nodo, para que las
+     * victorias guardadas en la tabla conserven su distancia al llegar por otro camino.
+     *
+     * @param score Puntuación del nodo.
+     * @param ply Distancia del nodo a la raíz.
+     * @return Puntuación a guardar en la tabla.
+     */
+    static int toTable(int score, int ply) {
+        if (score > WIN_BOUND) return score + ply;
+        if (score < -WIN_BOUND) return score - ply;
+        return score;
+    }
+
+    /**
+     * Operación inversa de {@link #toTable(int, int)}.
+     *
+     * @param score Puntuación guardada en la tabla.
+     * @param ply Distancia del nodo a la raíz.
+     * @return Puntuación del nodo.
+     */
+    static int fromTable(int score, int ply) {
+        if (score > WIN_BOUND) return score - ply;
+        if (score < -WIN_BOUND) return score + ply;
+        return score;
+    }
+
+    /**
+     * @return Mejor columna encontrada en la última búsqueda.
+     */
+    public int getBestColumn() {
+        return bestColumn;
+    }
+
+    /**
+     * @return Respuesta del rival según la variante principal de la última iteración
+     *         completada, o -1 si la variante no llega tan lejos.
+     */
+    public int getPredictedReply() {
+        return prevPvLength > 1 ? prevPv[1] : -1;
+    }
+
+    /**
+     * @return Puntuación de la mejor columna, relativa al color que mueve en la raíz.
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return Profundidad de la última iteración completada.
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * @return Número de podas beta de la última búsqueda.
+     */
+    public long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    /**
+     * @return Número de podas beta producidas por la primera jugada explorada del nodo.
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * @return Proporción de podas producidas por la primera jugada (1 = ordenación perfecta).
+     */
+    public double getFirstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    /**
+     * @return Número de jugadas exploradas en la última búsqueda.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Número de hojas evaluadas con la heurística en la última búsqueda.
+     */
+    public long getLeafEvaluations() {
+        return leafEvaluations;
+    }
+
+    /**
+     * @return Número de consultas a la tabla de transposiciones en la última búsqueda.
+     */
+    public long getTtProbes() {
+        return ttProbes;
+    }
+
+    /**
+     * @return Número de consultas que encontraron la posición en la tabla.
+     */
+    public long getTtHits() {
+        return ttHits;
+    }
+
+    /**
+     * @return Métricas de la última búsqueda.
+     */
+    public SearchStats getStats() {
+        int length = completedDepth + 1;
+        return new SearchStats(nodes, leafEvaluations, betaCutoffs, firstMoveCutoffs, ttProbes, ttHits,
+                completedDepth, bestColumn, bestScore, elapsedNanos,
+                Arrays.copyOf(depthNanos, length), Arrays.copyOf(depthNodes, length));
+    }
+}
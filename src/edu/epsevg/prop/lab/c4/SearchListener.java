@@ -0,0 +1,17 @@
+package edu.epsevg.prop.lab.c4;
+
+/**
+ * Interfaz SearchListener para recibir las métricas de cada búsqueda de {@link MinMaxBot}.
+ *
+ * Se llama desde el hilo que ha hecho la búsqueda, justo antes de devolver la jugada, así
+ * que la implementación debe ser rápida y, si el bot se comparte entre hilos, segura.
+ */
+public interface SearchListener {
+
+    /**
+     * Se llama al terminar cada búsqueda.
+     *
+     * @param stats Métricas de la búsqueda.
+     */
+    void searchFinished(SearchStats stats);
+}
@@ -0,0 +1,198 @@
+package edu.epsevg.prop.lab.c4;
+
+/**
+ * Clase SearchStats con las métricas de una búsqueda, es decir, de una llamada a
+ * {@link MinMaxBot#moviment(Tauler, int)}.
+ *
+ * Con el reparto de la raíz los contadores suman todos los hilos; con Lazy SMP solo los
+ * nodos, y el resto son los de la búsqueda principal. Los tiempos y nodos
+ * por profundidad se indexan por la profundidad de la iteración (1 es la primera) y valen 0
+ * para las que no se completaron. Si la posición se resolvió con {@link EndgameSolver}, la
+ * profundidad es el número de casillas libres. La instancia es inmutable.
+ */
+public final class SearchStats {
+
+    private final long nodes; // Jugadas exploradas
+    private final long leafEvaluations; // Hojas evaluadas con la heurística
+    private final long betaCutoffs; // Podas beta
+    private final long firstMoveCutoffs; // Podas beta producidas por la primera jugada
+    private final long ttProbes; // Consultas a la tabla de transposiciones
+    private final long ttHits; // Consultas que encontraron la posición
+    private final int depth; // Profundidad de la última iteración completada
+    private final int column; // Columna elegida
+    private final int score; // Puntuación de la columna elegida
+    private final long elapsedNanos; // Duración total de la búsqueda
+    private final long[] depthNanos; // Duración de cada iteración, indexada por profundidad
+    private final long[] depthNodes; // Nodos de cada iteración, indexados por profundidad
+
+    /**
+     * Constructor de SearchStats.
+     *
+     * @param nodes Jugadas exploradas.
+     * @param leafEvaluations Hojas evaluadas.
+     * @param betaCutoffs Podas beta.
+     * @param firstMoveCutoffs Podas beta de la primera jugada.
+     * @param ttProbes Consultas a la tabla de transposiciones.
+     * @param ttHits Consultas con éxito.
+     * @param depth Profundidad completada.
+     * @param column Columna elegida.
+     * @param score Puntuación de la columna.
+     * @param elapsedNanos Duración total en nanosegundos.
+     * @param depthNanos Duración de cada iteración; la posición 0 no se usa.
+     * @param depthNodes Nodos de cada iteración; la posición 0 no se usa.
+     */
+    SearchStats(long nodes, long leafEvaluations, long betaCutoffs, long firstMoveCutoffs,
+                long ttProbes, long ttHits, int depth, int column, int score, long elapsedNanos,
+                long[] depthNanos, long[] depthNodes) {
+        this.nodes = nodes;
+        this.leafEvaluations = leafEvaluations;
+        this.betaCutoffs = betaCutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.ttProbes = ttProbes;
+        this.ttHits = ttHits;
+        this.depth = depth;
+        this.column = column;
+        this.score = score;
+        this.elapsedNanos = elapsedNanos;
+        this.depthNanos = depthNanos;
+        this.depthNodes = depthNodes;
+    }
+
+    /**
+     * Copia de estas métricas con otro número de nodos, para sumar los de hilos auxiliares.
+     *
+     * @param totalNodes Jugadas exploradas en total.
+     * @return Nuevas métricas.
+     */
+    SearchStats withNodes(long totalNodes) {
+        return new SearchStats(totalNodes, leafEvaluations, betaCutoffs, firstMoveCutoffs, ttProbes, ttHits,
+                depth, column, score, elapsedNanos, depthNanos, depthNodes);
+    }
+
+    /**
+     * @return Número de jugadas exploradas.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Número de hojas evaluadas con la heurística.
+     */
+    public long getLeafEvaluations() {
+        return leafEvaluations;
+    }
+
+    /**
+     * @return Número de podas beta.
+     */
+    public long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    /**
+     * @return Número de podas beta producidas por la primera jugada explorada del nodo.
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * @return Proporción de podas producidas por la primera jugada (1 = ordenación perfecta).
+     */
+    public double getFirstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    /**
+     * @return Número de consultas a la tabla de transposiciones.
+     */
+    public long getTtProbes() {
+        return ttProbes;
+    }
+
+    /**
+     * @return Número de consultas que encontraron la posición en la tabla.
+     */
+    public long getTtHits() {
+        return ttHits;
+    }
+
+    /**
+     * @return Proporción de consultas a la tabla con éxito.
+     */
+    public double getTtHitRate() {
+        return ttProbes == 0 ? 0.0 : (double) ttHits / ttProbes;
+    }
+
+    /**
+     * @return Profundidad de la última iteración completada.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return Columna elegida.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return Puntuación de la columna elegida, relativa al color que mueve.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return Duración total de la búsqueda en nanosegundos.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return Jugadas exploradas por segundo.
+     */
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @param depth Profundidad de la iteración.
+     * @return Duración de la iteración en nanosegundos, o 0 si no se completó.
+     */
+    public long getDepthNanos(int depth) {
+        return depth > 0 && depth < depthNanos.length ? depthNanos[depth] : 0L;
+    }
+
+    /**
+     * @param depth Profundidad de la iteración.
+     * @return Jugadas exploradas en la iteración, o 0 si no se completó.
+     */
+    public long getDepthNodes(int depth) {
+        return depth > 0 && depth < depthNodes.length ? depthNodes[depth] : 0L;
+    }
+
+    /**
+     * Factor de ramificación efectivo: cuántas veces más nodos ha necesitado la última
+     * iteración completada que la anterior.
+     *
+     * @return Factor de ramificación efectivo, o 0 si no hay dos iteraciones completadas.
+     */
+    public double getEffectiveBranchingFactor() {
+        long last = getDepthNodes(depth), previous = getDepthNodes(depth - 1);
+        return last == 0 || previous == 0 ? 0.0 : (double) last / previous;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("prof %d, col %d, punt %d, %d nodos (%.0f/s), %d hojas, EBF %.2f, "
+                + "podas %d (%.1f%% primera), TT %.1f%%, %.1f ms",
+                depth, column, score, nodes, getNodesPerSecond(), leafEvaluations,
+                getEffectiveBranchingFactor(), betaCutoffs, 100 * getFirstMoveCutoffRate(),
+                100 * getTtHitRate(), elapsedNanos / 1e6);
+    }
+}
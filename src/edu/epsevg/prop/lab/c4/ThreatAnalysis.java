@@ -0,0 +1,188 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.Arrays;
+
+/**
+ * Clase ThreatAnalysis que detecta las amenazas que deciden la siguiente jugada.
+ *
+ * Una amenaza es una casilla vacía que completaría una línea de un jugador. Solo importan
+ * de inmediato las que se pueden ocupar ya (la casilla libre más baja de su columna) y las
+ * que quedan justo encima de ellas, porque jugar debajo de una amenaza del rival le deja
+ * la casilla servida. A partir de ellas se obtienen:
+ * <ul>
+ *   <li>las victorias inmediatas del jugador que mueve;</li>
+ *   <li>los bloqueos forzados, cuando el rival gana en la siguiente jugada;</li>
+ *   <li>las dobles amenazas del rival, que no se pueden bloquear y pierden la partida;</li>
+ *   <li>las jugadas envenenadas, que dan al rival la casilla de encima.</li>
+ * </ul>
+ *
+ * Igual que {@link IncrementalEvaluator}, las amenazas se mantienen jugada a jugada: se
+ * guardan las fichas de cada color en cada línea y la suma de sus casillas, de modo que
+ * cuando a una línea solo le falta una ficha la casilla que falta se obtiene restando. Así
+ * las consultas solo miran la casilla libre de cada columna. Los conjuntos de columnas se
+ * devuelven como máscaras de bits (bit c = columna c). Una instancia no debe usarse desde
+ * varios hilos a la vez.
+ */
+public final class ThreatAnalysis {
+
+    public static final int LOST = Integer.MIN_VALUE; // Marca de {@link #candidates}: la posición está perdida
+
+    private final LineTable lines; // Líneas del tablero
+    private final int size; // Tamaño del lado del tablero
+    private final int cells; // Número de casillas del tablero
+    private final int connect; // Fichas en línea necesarias para ganar
+    private final int[] lineSum; // Suma de las casillas de cada línea
+    private final int[] counts; // Fichas de cada color en cada línea: counts[2 * línea + lado]
+    private final int[] sums; // Suma de las casillas ocupadas por cada color en cada línea
+    private final int[] threatCount; // Líneas que completa cada casilla: threatCount[lado * casillas + casilla]
+
+    /**
+     * Constructor de ThreatAnalysis.
+     *
+     * @param heuristica Heurística cuyas líneas se analizan.
+     */
+    public ThreatAnalysis(Heuristica heuristica) {
+        this.lines = heuristica.getLineTable();
+        this.size = lines.size();
+        this.cells = size * size;
+        this.connect = lines.connect();
+        this.lineSum = new int[lines.lineCount()];
+        for (int line = 0; line < lineSum.length; line++) {
+            for (int cell : lines.cells(line)) lineSum[line] += cell;
+        }
+        this.counts = new int[2 * lineSum.length];
+        this.sums = new int[2 * lineSum.length];
+        this.threatCount = new int[2 * cells];
+    }
+
+    /**
+     * Recalcula las amenazas a partir de un tablero completo.
+     *
+     * @param board Tablero a analizar.
+     */
+    public void reset(Bitboard board) {
+        Arrays.fill(counts, 0);
+        Arrays.fill(sums, 0);
+        Arrays.fill(threatCount, 0);
+        for (int c = 0; c < size; c++) {
+            for (int r = 0; r < board.height(c); r++) {
+                play(board.cell(r, c), board.get(r, c));
+            }
+        }
+    }
+
+    /**
+     * Actualiza las amenazas tras colocar una ficha. Solo cambian las líneas a las que les
+     * faltaban una o dos fichas: la ficha completa o tapa una amenaza en su propia casilla,
+     * o deja una nueva en la casilla que aún falta.
+     *
+     * @param cell Casilla ocupada (véase {@link Bitboard#play(int, int)}).
+     * @param color Color de la ficha.
+     */
+    public void play(int cell, int color) {
+        int s = Bitboard.side(color);
+        int own = s * cells, opp = (1 - s) * cells;
+        for (int line : lines.linesThrough(cell)) {
+            int index = 2 * line + s;
+            int mine = counts[index]++;
+            int theirs = counts[index ^ 1];
+            sums[index] += cell;
+            if (theirs == 0) {
+                if (mine == connect - 2) ++threatCount[own + lineSum[line] - sums[index]];
+                else if (mine == connect - 1) --threatCount[own + cell];
+            } else if (mine == 0 && theirs == connect - 1) {
+                --threatCount[opp + cell];
+            }
+        }
+    }
+
+    /**
+     * Deshace {@link #play(int, int)}.
+     *
+     * @param cell Casilla que se libera.
+     * @param color Color de la ficha retirada.
+     */
+    public void undo(int cell, int color) {
+        int s = Bitboard.side(color);
+        int own = s * cells, opp = (1 - s) * cells;
+        for (int line : lines.linesThrough(cell)) {
+            int index = 2 * line + s;
+            int mine = --counts[index];
+            int theirs = counts[index ^ 1];
+            if (theirs == 0) {
+                if (mine == connect - 2) --threatCount[own + lineSum[line] - sums[index]];
+                else if (mine == connect - 1) ++threatCount[own + cell];
+            } else if (mine == 0 && theirs == connect - 1) {
+                ++threatCount[opp + cell];
+            }
+            sums[index] -= cell;
+        }
+    }
+
+    /**
+     * @param color Color del jugador.
+     * @param cell Casilla vacía.
+     * @return true si ocupar la casilla completa una línea del color.
+     */
+    public boolean isThreat(int color, int cell) {
+        return threatCount[Bitboard.side(color) * cells + cell] > 0;
+    }
+
+    /**
+     * Columnas en las que un color gana con su siguiente ficha.
+     *
+     * @param board Tablero, en el mismo estado que las amenazas.
+     * @param color Color del jugador.
+     * @return Máscara de columnas ganadoras.
+     */
+    public int winningColumns(Bitboard board, int color) {
+        int base = Bitboard.side(color) * cells;
+        int mask = 0;
+        for (int col = 0; col < size; col++) {
+            int height = board.height(col);
+            if (height < size && threatCount[base + col * size + height] > 0) mask |= 1 << col;
+        }
+        return mask;
+    }
+
+    /**
+     * Columnas en las que jugar deja al rival una victoria justo encima.
+     *
+     * @param board Tablero, en el mismo estado que las amenazas.
+     * @param color Color del jugador que mueve.
+     * @return Máscara de columnas envenenadas.
+     */
+    public int poisonedColumns(Bitboard board, int color) {
+        int base = Bitboard.side(-color) * cells;
+        int mask = 0;
+        for (int col = 0; col < size; col++) {
+            int height = board.height(col);
+            if (height + 1 < size && threatCount[base + col * size + height + 1] > 0) mask |= 1 << col;
+        }
+        return mask;
+    }
+
+    /**
+     * Columnas que vale la pena explorar cuando el jugador que mueve no gana de inmediato
+     * (véase {@link #winningColumns}). Si el rival gana en la siguiente jugada, solo la
+     * columna que lo bloquea; si no, las que no están envenenadas. Cuando el rival tiene dos
+     * victorias inmediatas o todas las jugadas están envenenadas la posición está perdida
+     * en dos jugadas: se activa {@link #LOST} y se devuelven igualmente columnas jugables.
+     *
+     * @param board Tablero, en el mismo estado que las amenazas.
+     * @param color Color del jugador que mueve.
+     * @return Máscara de columnas a explorar, con {@link #LOST} si la posición está perdida.
+     */
+    public int candidates(Bitboard board, int color) {
+        int blocks = winningColumns(board, -color);
+        if (blocks != 0) {
+            return Integer.bitCount(blocks) > 1 ? blocks | LOST : blocks;
+        }
+        int playable = 0;
+        for (int col = 0; col < size; col++) {
+            if (board.canPlay(col)) playable |= 1 << col;
+        }
+        int safe = playable & ~poisonedColumns(board, color);
+        return safe != 0 ? safe : playable | LOST;
+    }
+}
@@ -0,0 +1,229 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.Arrays;
+
+/**
+ * Clase TranspositionTable que guarda los resultados de la búsqueda indexados por el hash
+ * Zobrist de la posición.
+ *
+ * La tabla tiene un tamaño fijo y está formada por dos arrays de {@code long}: la clave
+ * completa y una entrada empaquetada con la puntuación, la profundidad, el tipo de cota,
+ * la mejor columna y la generación en que se escribió. Las consultas devuelven la entrada
+ * empaquetada (0 si no hay ninguna) y se decodifica con los métodos estáticos, de modo que
+ * no se crea ningún objeto.
+ *
+ * Varias búsquedas pueden leer y escribir la tabla a la vez sin bloqueos: en lugar de la
+ * clave se guarda {@code clave ^ entrada}, así que si otro hilo sobrescribe la casilla entre
+ * la lectura de los dos arrays (o una escritura llega a medias) la comprobación falla y la
+ * consulta se trata como un fallo. Se puede perder alguna escritura concurrente, pero nunca
+ * se devuelve una entrada de otra posición.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 0; // La puntuación es exacta
+    public static final int LOWER = 1; // La puntuación es una cota inferior (poda beta)
+    public static final int UPPER = 2; // La puntuación es una cota superior (ningún hijo superó alfa)
+
+    /**
+     * Política de reemplazo cuando dos posiciones comparten casilla en la tabla.
+     */
+    public enum ReplacementPolicy {
+        /** Siempre sobrescribe la entrada anterior. */
+        ALWAYS,
+        /** Solo sobrescribe si la nueva búsqueda es al menos igual de profunda. */
+        DEPTH_PREFERRED,
+        /** Como DEPTH_PREFERRED, pero las entradas de movimientos anteriores se reemplazan siempre. */
+        AGED_DEPTH_PREFERRED
+    }
+
+    private static final long VALID = 1L << 63; // Distingue una entrada vacía de una con todo a 0
+    private static final long SOLVED = 1L << 58; // La entrada es del resolvedor de finales
+
+    private final long[] keys; // Hash completo de cada entrada
+    private final long[] data; // Entrada empaquetada
+    private final int mask; // Máscara para obtener el índice a partir del hash
+    private final ReplacementPolicy policy; // Política de reemplazo
+    private volatile int generation; // Generación actual, una por llamada a moviment
+
+    /**
+     * Constructor de la tabla.
+     *
+     * @param log2Size Logaritmo en base 2 del número de entradas.
+     * @param policy Política de reemplazo.
+     */
+    public TranspositionTable(int log2Size, ReplacementPolicy policy) {
+        if (log2Size < 1 || log2Size > 30) {
+            throw new IllegalArgumentException("Tamaño de tabla no soportado: 2^" + log2Size);
+        }
+        this.keys = new long[1 << log2Size]; // clave ^ entrada
+        this.data = new long[1 << log2Size];
+        this.mask = (1 << log2Size) - 1;
+        this.policy = policy;
+    }
+
+    /**
+     * Busca una posición en la tabla.
+     *
+     * @param key Hash de la posición.
+     * @return La entrada empaquetada, o 0 si la posición no está en la tabla.
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        return (keys[index] ^ entry) == key ? entry : 0L;
+    }
+
+    /**
+     * Guarda el resultado de una búsqueda, respetando la política de reemplazo.
+     *
+     * @param key Hash de la posición.
+     * @param depth Profundidad restante con la que se buscó.
+     * @param bound Tipo de cota: {@link #EXACT}, {@link #LOWER} o {@link #UPPER}.
+     * @param score Puntuación obtenida.
+     * @param move Mejor columna, o -1 si no se conoce.
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        store(key, depth, bound, score, move, false);
+    }
+
+    /**
+     * Guarda el resultado de una búsqueda, indicando si es del {@link EndgameSolver}. Sus
+     * entradas tienen una clave propia que la búsqueda normal no consulta, así que se
+     * marcan para que {@link AnalysisCache#merge} no las copie.
+     *
+     * @param key Hash de la posición.
+     * @param depth Profundidad restante con la que se buscó.
+     * @param bound Tipo de cota: {@link #EXACT}, {@link #LOWER} o {@link #UPPER}.
+     * @param score Puntuación obtenida.
+     * @param move Mejor columna, o -1 si no se conoce.
+     * @param solved Indica si la entrada es del resolvedor de finales.
+     */
+    public void store(long key, int depth, int bound, int score, int move, boolean solved) {
+        int index = (int) key & mask;
+        long old = data[index];
+        int current = generation & 0xFF;
+        if (old != 0L && (keys[index] ^ old) != key) {
+            switch (policy) {
+                case DEPTH_PREFERRED:
+                    if (depth < depth(old)) return;
+                    break;
+                case AGED_DEPTH_PREFERRED:
+                    if (generation(old) == current && depth < depth(old)) return;
+                    break;
+                default:
+                    break;
+            }
+        }
+        long entry = pack(depth, bound, score, move, current) | (solved ? SOLVED : 0L);
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    /**
+     * Empaqueta una entrada en el formato que devuelve {@link #probe(long)}.
+     *
+     * @param depth Profundidad restante con la que se buscó.
+     * @param bound Tipo de cota.
+     * @param score Puntuación obtenida.
+     * @param move Mejor columna, o -1 si no se conoce.
+     * @param generation Generación de la entrada (8 bits).
+     * @return Entrada empaquetada, nunca 0.
+     */
+    static long pack(int depth, int bound, int score, int move, int generation) {
+        return VALID
+                | (long) (generation & 0xFF) << 50
+                | (long) (move + 1 & 0xFF) << 42
+                | (long) (bound & 0x3) << 40
+                | (long) (Math.min(depth, 0xFF) & 0xFF) << 32
+                | (score & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Comienza una nueva generación. Se llama al inicio de cada búsqueda para que la
+     * política {@link ReplacementPolicy#AGED_DEPTH_PREFERRED} reconozca las entradas antiguas.
+     */
+    public void nextGeneration() {
+        ++generation;
+    }
+
+    /**
+     * @return Número de casillas de la tabla, para recorrerla con {@link #entryAt(int)}.
+     */
+    public int capacity() {
+        return data.length;
+    }
+
+    /**
+     * @param index Casilla de la tabla, entre 0 y {@link #capacity()} - 1.
+     * @return Entrada empaquetada de la casilla, o 0 si está vacía.
+     */
+    public long entryAt(int index) {
+        return data[index];
+    }
+
+    /**
+     * @param index Casilla de la tabla.
+     * @param entry Entrada leída antes con {@link #entryAt(int)}.
+     * @return Hash de la posición de la entrada. Si otro hilo ha escrito la casilla entretanto,
+     *         no corresponde a ninguna posición y las consultas con él fallan.
+     */
+    public long keyAt(int index, long entry) {
+        return keys[index] ^ entry;
+    }
+
+    /**
+     * Vacía la tabla. No debe llamarse mientras otra búsqueda la está usando.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    /**
+     * @param entry Entrada devuelta por {@link #probe(long)}.
+     * @return Puntuación guardada.
+     */
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * @param entry Entrada devuelta por {@link #probe(long)}.
+     * @return Profundidad con la que se buscó la posición.
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    /**
+     * @param entry Entrada devuelta por {@link #probe(long)}.
+     * @return Tipo de cota de la puntuación.
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /**
+     * @param entry Entrada devuelta por {@link #probe(long)}.
+     * @return Mejor columna, o -1 si no se conoce.
+     */
+    public static int move(long entry) {
+        return ((int) (entry >>> 42) & 0xFF) - 1;
+    }
+
+    /**
+     * @param entry Entrada devuelta por {@link #probe(long)}.
+     * @return true si la guardó el resolvedor de finales.
+     */
+    public static boolean isSolved(long entry) {
+        return (entry & SOLVED) != 0L;
+    }
+
+    /**
+     * @param entry Entrada devuelta por {@link #probe(long)}.
+     * @return Generación en que se guardó la entrada (8 bits).
+     */
+    static int generation(long entry) {
+        return (int) (entry >>> 50) & 0xFF;
+    }
+}
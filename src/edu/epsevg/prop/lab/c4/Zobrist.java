@@ -0,0 +1,72 @@
+package edu.epsevg.prop.lab.c4;
+
+import java.util.Random;
+
+/**
+ * Clase Zobrist con las claves aleatorias usadas para calcular el hash de una posición.
+ *
+ * El hash de un tablero es el XOR de la clave de cada ficha (color, casilla). Como XOR es
+ * su propia inversa, colocar o retirar una ficha actualiza el hash con una sola operación.
+ * La semilla es fija para que el mismo tablero tenga el mismo hash en cualquier ejecución.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x4E5261796AL; // Semilla fija de las claves
+    private static final long[][] PIECES = new long[2][Bitboard.MAX_CELLS]; // Clave de cada (color, casilla)
+    private static final long SIDE; // Clave del turno del color -1
+    private static final long PERSPECTIVE; // Clave de la búsqueda hecha para el color -1
+    private static final long SOLVED; // Clave de las entradas con puntuación exacta del final
+
+    static {
+        Random random = new Random(SEED);
+        for (int s = 0; s < 2; s++) {
+            for (int cell = 0; cell < Bitboard.MAX_CELLS; cell++) {
+                PIECES[s][cell] = random.nextLong();
+            }
+        }
+        SIDE = random.nextLong();
+        PERSPECTIVE = random.nextLong();
+        SOLVED = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param side Índice del color (véase {@link Bitboard#side(int)}).
+     * @param cell Índice de la casilla.
+     * @return Clave de una ficha de ese color en esa casilla.
+     */
+    static long piece(int side, int cell) {
+        return PIECES[side][cell];
+    }
+
+    /**
+     * @param color Color del jugador que mueve.
+     * @return Clave a combinar con el hash según el turno.
+     */
+    public static long side(int color) {
+        return color == 1 ? 0L : SIDE;
+    }
+
+    /**
+     * La heurística puntúa desde el punto de vista de un color, así que las puntuaciones
+     * guardadas solo son reutilizables por búsquedas hechas para el mismo color.
+     *
+     * @param rootColor Color para el que se realiza la búsqueda.
+     * @return Clave a combinar con el hash según el color de la búsqueda.
+     */
+    public static long perspective(int rootColor) {
+        return rootColor == 1 ? 0L : PERSPECTIVE;
+    }
+
+    /**
+     * Las puntuaciones del {@link EndgameSolver} son exactas y no dependen de la heurística,
+     * así que se guardan aparte de las de la búsqueda normal.
+     *
+     * @return Clave a combinar con el hash en las entradas del resolvedor de finales.
+     */
+    public static long solved() {
+        return SOLVED;
+    }
+}